@@ -0,0 +1,58 @@
+package jenkins.plugins.slack;
+
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * When the {@link SlackCircuitBreaker} stops calling Slack for a while.
+ *
+ * Configured globally in {@link SlackNotifier.DescriptorImpl} next to the {@link HttpClientSettings}, but kept apart
+ * from them as changing these doesn't need a new connection pool.
+ */
+@Restricted(NoExternalUse.class)
+public final class CircuitBreakerSettings {
+
+    public static final int DEFAULT_THRESHOLD = 5;
+    public static final int DEFAULT_COOL_DOWN_SECONDS = 60;
+
+    public static final CircuitBreakerSettings DEFAULT = new CircuitBreakerSettings(DEFAULT_THRESHOLD,
+            DEFAULT_COOL_DOWN_SECONDS);
+
+    private final int threshold;
+    private final int coolDownSeconds;
+
+    /**
+     * @param threshold consecutive failures after which calls fail fast, 0 disables the circuit breaker
+     * @param coolDownSeconds how long calls fail fast before a single call is let through again
+     */
+    public CircuitBreakerSettings(int threshold, int coolDownSeconds) {
+        this.threshold = threshold;
+        this.coolDownSeconds = coolDownSeconds;
+    }
+
+    /**
+     * @return the globally configured settings, or the defaults when not running on the controller
+     */
+    public static CircuitBreakerSettings current() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return DEFAULT;
+        }
+        SlackNotifier.DescriptorImpl descriptor = jenkins.getDescriptorByType(SlackNotifier.DescriptorImpl.class);
+        return descriptor != null ? descriptor.getCircuitBreakerSettings() : DEFAULT;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getCoolDownSeconds() {
+        return coolDownSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "fail fast for " + coolDownSeconds + "s after " + threshold + " failures";
+    }
+}
@@ -8,14 +8,18 @@ import org.apache.hc.client5.http.auth.NTCredentials;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.routing.HttpRoutePlanner;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -23,47 +27,90 @@ import org.kohsuke.accmod.restrictions.NoExternalUse;
 @Restricted(NoExternalUse.class)
 public class HttpClient {
 
+    /**
+     * Creates a builder backed by its own connection pool, the client built from it owns that pool.
+     * Prefer {@link HttpClientRegistry} which keeps a long-lived pool per proxy configuration.
+     */
     public static HttpClientBuilder getCloseableHttpClientBuilder(ProxyConfiguration proxy) {
-        int timeoutInSeconds = 60;
+        HttpClientSettings settings = HttpClientSettings.current();
+        return configure(HttpClients.custom().setConnectionManager(createConnectionManager(settings)), proxy, settings);
+    }
+
+    public static CloseableHttpClient getCloseableHttpClient(ProxyConfiguration proxy) {
+        return getCloseableHttpClientBuilder(proxy).build();
+    }
 
-        ConnectionConfig connectionConfig = ConnectionConfig.custom()
-                .setConnectTimeout(Timeout.ofSeconds(timeoutInSeconds))
-                .setSocketTimeout(Timeout.ofSeconds(timeoutInSeconds)).build();
-        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                .setDefaultConnectionConfig(connectionConfig)
+    static PoolingHttpClientConnectionManager createConnectionManager(HttpClientSettings settings) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(createConnectionConfig(settings))
+                .setMaxConnTotal(settings.getMaxConnections())
+                .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
                 .build();
+    }
 
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(Timeout.ofSeconds(timeoutInSeconds)).build();
+    static PoolingAsyncClientConnectionManager createAsyncConnectionManager(HttpClientSettings settings) {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(createConnectionConfig(settings))
+                .setMaxConnTotal(settings.getMaxConnections())
+                .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+                .build();
+    }
 
-        final HttpClientBuilder clientBuilder = HttpClients
-                .custom()
+    private static ConnectionConfig createConnectionConfig(HttpClientSettings settings) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofSeconds(settings.getConnectTimeoutSeconds()))
+                .setSocketTimeout(Timeout.ofSeconds(settings.getReadTimeoutSeconds()))
+                // connections parked in the pool may have been dropped by slack or a proxy in the meantime
+                .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                .build();
+    }
+
+    private static RequestConfig createRequestConfig(HttpClientSettings settings) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofSeconds(settings.getConnectionRequestTimeoutSeconds()))
+                .setResponseTimeout(Timeout.ofSeconds(settings.getReadTimeoutSeconds()))
+                .build();
+    }
+
+    static HttpClientBuilder configure(HttpClientBuilder clientBuilder, ProxyConfiguration proxy, HttpClientSettings settings) {
+        clientBuilder
                 .useSystemProperties()
-                .setConnectionManager(connectionManager)
-                .setDefaultRequestConfig(requestConfig);
-        final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-        clientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+                .setDefaultRequestConfig(createRequestConfig(settings))
+                .setDefaultCredentialsProvider(createCredentialsProvider(proxy));
+        if (proxy != null) {
+            clientBuilder.setRoutePlanner(createRoutePlanner(proxy));
+        }
+        return clientBuilder;
+    }
 
+    static HttpAsyncClientBuilder configure(HttpAsyncClientBuilder clientBuilder, ProxyConfiguration proxy, HttpClientSettings settings) {
+        clientBuilder
+                .useSystemProperties()
+                .setDefaultRequestConfig(createRequestConfig(settings))
+                .setDefaultCredentialsProvider(createCredentialsProvider(proxy));
         if (proxy != null) {
-            final HttpHost proxyHost = new HttpHost(proxy.name, proxy.port);
-            final HttpRoutePlanner routePlanner = new NoProxyHostCheckerRoutePlanner(proxy.getNoProxyHost(), proxyHost);
-            clientBuilder.setRoutePlanner(routePlanner);
+            clientBuilder.setRoutePlanner(createRoutePlanner(proxy));
+        }
+        return clientBuilder;
+    }
+
+    private static HttpRoutePlanner createRoutePlanner(ProxyConfiguration proxy) {
+        return new NoProxyHostCheckerRoutePlanner(proxy.getNoProxyHost(), new HttpHost(proxy.name, proxy.port));
+    }
 
+    private static BasicCredentialsProvider createCredentialsProvider(ProxyConfiguration proxy) {
+        final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        if (proxy != null) {
             String username = proxy.getUserName();
             Secret secretPassword = proxy.getSecretPassword();
             String password = Secret.toString(secretPassword);
             // Consider it to be passed if username specified. Sufficient?
             if (username != null && !username.trim().isEmpty()) {
-                credentialsProvider.setCredentials(new AuthScope(proxyHost),
+                credentialsProvider.setCredentials(new AuthScope(new HttpHost(proxy.name, proxy.port)),
                         createCredentials(username, password));
             }
         }
-        return clientBuilder;
-
-    }
-
-    public static CloseableHttpClient getCloseableHttpClient(ProxyConfiguration proxy) {
-        return getCloseableHttpClientBuilder(proxy).build();
+        return credentialsProvider;
     }
 
     private static Credentials createCredentials(String userName, String password) {
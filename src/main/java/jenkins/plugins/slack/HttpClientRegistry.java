@@ -0,0 +1,284 @@
+package jenkins.plugins.slack;
+
+import hudson.ProxyConfiguration;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Process wide registry of pooled HTTP clients, one per effective proxy configuration and {@link HttpClientSettings}.
+ *
+ * Clients handed out by the registry are shared and must not be closed by callers.
+ * A registration that hasn't been used for a while (e.g. because the proxy configuration changed) is closed once
+ * nothing holds its client anymore, so callers may keep the client they got.
+ * This class is also used on agents, so it only relies on the proxy configuration and settings passed in.
+ */
+@Restricted(NoExternalUse.class)
+public final class HttpClientRegistry {
+
+    private static final Logger logger = Logger.getLogger(HttpClientRegistry.class.getName());
+
+    private static final TimeValue IDLE_CONNECTION_TIMEOUT = TimeValue.ofSeconds(30);
+    private static final int IO_THREAD_COUNT = 2;
+    private static final long UNUSED_REGISTRATION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<Key, Registration> REGISTRATIONS = new ConcurrentHashMap<>();
+
+    private HttpClientRegistry() {
+    }
+
+    /**
+     * Shared client for the proxy configured in Jenkins, use on the controller only.
+     */
+    public static CloseableHttpClient getHttpClient() {
+        return getHttpClient(currentProxy(), HttpClientSettings.current());
+    }
+
+    /**
+     * Shared client for the given proxy configuration.
+     *
+     * @param proxy proxy configuration, may be null
+     * @return a pooled client, do not close it
+     */
+    public static CloseableHttpClient getHttpClient(ProxyConfiguration proxy) {
+        return getHttpClient(proxy, HttpClientSettings.current());
+    }
+
+    /**
+     * Shared client for the given proxy configuration and settings.
+     *
+     * @param proxy proxy configuration, may be null
+     * @param settings timeouts and pool limits
+     * @return a pooled client, do not close it
+     */
+    public static CloseableHttpClient getHttpClient(ProxyConfiguration proxy, HttpClientSettings settings) {
+        return registration(proxy, settings).client();
+    }
+
+    /**
+     * Shared asynchronous client for the proxy configured in Jenkins, use on the controller only.
+     */
+    public static CloseableHttpAsyncClient getHttpAsyncClient() {
+        return getHttpAsyncClient(currentProxy());
+    }
+
+    /**
+     * Shared asynchronous client for the given proxy configuration, all requests are multiplexed onto a few I/O threads.
+     *
+     * @param proxy proxy configuration, may be null
+     * @return a started pooled client, do not close it
+     */
+    public static CloseableHttpAsyncClient getHttpAsyncClient(ProxyConfiguration proxy) {
+        return registration(proxy, HttpClientSettings.current()).asyncClient();
+    }
+
+    /**
+     * Builder for a client that needs its own settings (e.g. a retry strategy) but re-uses the shared connection pool.
+     * Closing the built client leaves the pool open.
+     *
+     * @param proxy proxy configuration, may be null
+     * @return a builder using the shared connection pool
+     */
+    public static HttpClientBuilder getHttpClientBuilder(ProxyConfiguration proxy) {
+        return getHttpClientBuilder(proxy, HttpClientSettings.current());
+    }
+
+    /**
+     * Builder for a client with its own settings that re-uses the shared connection pool for the given settings.
+     * Closing the built client leaves the pool open.
+     *
+     * @param proxy proxy configuration, may be null
+     * @param settings timeouts and pool limits
+     * @return a builder using the shared connection pool
+     */
+    public static HttpClientBuilder getHttpClientBuilder(ProxyConfiguration proxy, HttpClientSettings settings) {
+        return HttpClient.configure(HttpClients.custom()
+                .setConnectionManager(registration(proxy, settings).connectionManager)
+                .setConnectionManagerShared(true), proxy, settings);
+    }
+
+    static ProxyConfiguration currentProxy() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? jenkins.getProxy() : null;
+    }
+
+    private static Registration registration(ProxyConfiguration proxy, HttpClientSettings settings) {
+        long now = System.currentTimeMillis();
+        Key key = new Key(proxy, settings);
+        Registration registration = REGISTRATIONS.computeIfAbsent(key, k -> {
+            logger.fine("Creating pooled HTTP client for " + k);
+            return new Registration(proxy, settings);
+        });
+        registration.lastUsed = now;
+        closeUnused(now);
+        return registration;
+    }
+
+    static void closeUnused(long now) {
+        Iterator<Map.Entry<Key, Registration>> iterator = REGISTRATIONS.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Registration> entry = iterator.next();
+            Registration registration = entry.getValue();
+            if (now - registration.lastUsed > UNUSED_REGISTRATION_TIMEOUT_MILLIS && !registration.isClientHeld()) {
+                logger.fine("Closing unused pooled HTTP client for " + entry.getKey());
+                iterator.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+
+    static int size() {
+        return REGISTRATIONS.size();
+    }
+
+    static void clear() {
+        REGISTRATIONS.values().forEach(Registration::close);
+        REGISTRATIONS.clear();
+    }
+
+    private static final class Registration {
+        private final ProxyConfiguration proxy;
+        private final HttpClientSettings settings;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient client;
+        // callers get a wrapper, so the registry can tell whether the client is still held by someone
+        private WeakReference<SharedHttpClient> sharedClient = new WeakReference<>(null);
+        private CloseableHttpAsyncClient asyncClient;
+        // set right away, so a registration that is being handed out isn't taken for unused
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Registration(ProxyConfiguration proxy, HttpClientSettings settings) {
+            this.proxy = proxy;
+            this.settings = settings;
+            this.connectionManager = HttpClient.createConnectionManager(settings);
+            this.client = HttpClient.configure(HttpClients.custom(), proxy, settings)
+                    .setConnectionManager(connectionManager)
+                    .evictExpiredConnections()
+                    .evictIdleConnections(IDLE_CONNECTION_TIMEOUT)
+                    .build();
+        }
+
+        private synchronized CloseableHttpClient client() {
+            SharedHttpClient shared = sharedClient.get();
+            if (shared == null) {
+                shared = new SharedHttpClient(client);
+                sharedClient = new WeakReference<>(shared);
+            }
+            return shared;
+        }
+
+        private synchronized boolean isClientHeld() {
+            return sharedClient.get() != null;
+        }
+
+        // created on first use as agents never need it
+        private synchronized CloseableHttpAsyncClient asyncClient() {
+            if (asyncClient == null) {
+                asyncClient = HttpClient.configure(HttpAsyncClients.custom(), proxy, settings)
+                        .setConnectionManager(HttpClient.createAsyncConnectionManager(settings))
+                        .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(IO_THREAD_COUNT).build())
+                        .evictExpiredConnections()
+                        .evictIdleConnections(IDLE_CONNECTION_TIMEOUT)
+                        .build();
+                asyncClient.start();
+            }
+            return asyncClient;
+        }
+
+        private synchronized void close() {
+            client.close(CloseMode.GRACEFUL);
+            if (asyncClient != null) {
+                asyncClient.close(CloseMode.GRACEFUL);
+            }
+        }
+    }
+
+    /**
+     * The pooled client as handed out to callers, closing it does nothing.
+     */
+    private static final class SharedHttpClient extends CloseableHttpClient {
+        private final CloseableHttpClient delegate;
+
+        private SharedHttpClient(CloseableHttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, ClassicHttpRequest request, HttpContext context) throws IOException {
+            return CloseableHttpResponse.adapt(delegate.executeOpen(target, request, context));
+        }
+
+        @Override
+        public void close() {
+            // shared, closed by the registry
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            // shared, closed by the registry
+        }
+    }
+
+    private static final class Key {
+        private final String name;
+        private final int port;
+        private final String noProxyHost;
+        private final String userName;
+        private final Secret password;
+        private final HttpClientSettings settings;
+
+        private Key(ProxyConfiguration proxy, HttpClientSettings settings) {
+            this.name = proxy != null ? proxy.name : null;
+            this.port = proxy != null ? proxy.port : -1;
+            this.noProxyHost = proxy != null ? proxy.getNoProxyHost() : null;
+            this.userName = proxy != null ? proxy.getUserName() : null;
+            this.password = proxy != null ? proxy.getSecretPassword() : null;
+            this.settings = settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return port == key.port &&
+                    Objects.equals(settings, key.settings) &&
+                    Objects.equals(name, key.name) &&
+                    Objects.equals(noProxyHost, key.noProxyHost) &&
+                    Objects.equals(userName, key.userName) &&
+                    Objects.equals(password, key.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, port, noProxyHost, userName, password, settings);
+        }
+
+        @Override
+        public String toString() {
+            return (name == null ? "direct connection" : "proxy " + name + ":" + port) + " with " + settings;
+        }
+    }
+}
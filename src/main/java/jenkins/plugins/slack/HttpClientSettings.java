@@ -0,0 +1,108 @@
+package jenkins.plugins.slack;
+
+import java.io.Serializable;
+import java.util.Objects;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * How the plugin connects to Slack: timeouts and connection pool limits. Each combination gets its own pool in the
+ * {@link HttpClientRegistry}, so when to stop trying for a while is kept in {@link CircuitBreakerSettings} instead.
+ *
+ * Settings are configured globally in {@link SlackNotifier.DescriptorImpl}. They are serializable so work running on
+ * an agent, such as file uploads, uses the settings of the controller.
+ */
+@Restricted(NoExternalUse.class)
+public final class HttpClientSettings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 60;
+    public static final int DEFAULT_READ_TIMEOUT_SECONDS = 60;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_SECONDS = 60;
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    public static final HttpClientSettings DEFAULT = new HttpClientSettings(DEFAULT_CONNECT_TIMEOUT_SECONDS,
+            DEFAULT_READ_TIMEOUT_SECONDS, DEFAULT_CONNECTION_REQUEST_TIMEOUT_SECONDS, DEFAULT_MAX_CONNECTIONS,
+            DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+
+    private final int connectTimeoutSeconds;
+    private final int readTimeoutSeconds;
+    private final int connectionRequestTimeoutSeconds;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+
+    /**
+     * @param connectTimeoutSeconds how long establishing a connection may take
+     * @param readTimeoutSeconds how long to wait for data from Slack once connected
+     * @param connectionRequestTimeoutSeconds how long to wait for a connection from the pool
+     * @param maxConnections connections kept open in total
+     * @param maxConnectionsPerRoute connections kept open to one host
+     */
+    public HttpClientSettings(int connectTimeoutSeconds, int readTimeoutSeconds, int connectionRequestTimeoutSeconds,
+                              int maxConnections, int maxConnectionsPerRoute) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        this.readTimeoutSeconds = readTimeoutSeconds;
+        this.connectionRequestTimeoutSeconds = connectionRequestTimeoutSeconds;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return the globally configured settings, or the defaults when not running on the controller
+     */
+    public static HttpClientSettings current() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return DEFAULT;
+        }
+        SlackNotifier.DescriptorImpl descriptor = jenkins.getDescriptorByType(SlackNotifier.DescriptorImpl.class);
+        return descriptor != null ? descriptor.getHttpClientSettings() : DEFAULT;
+    }
+
+    public int getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public int getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    public int getConnectionRequestTimeoutSeconds() {
+        return connectionRequestTimeoutSeconds;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HttpClientSettings that = (HttpClientSettings) o;
+        return connectTimeoutSeconds == that.connectTimeoutSeconds &&
+                readTimeoutSeconds == that.readTimeoutSeconds &&
+                connectionRequestTimeoutSeconds == that.connectionRequestTimeoutSeconds &&
+                maxConnections == that.maxConnections &&
+                maxConnectionsPerRoute == that.maxConnectionsPerRoute;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(connectTimeoutSeconds, readTimeoutSeconds, connectionRequestTimeoutSeconds,
+                maxConnections, maxConnectionsPerRoute);
+    }
+
+    @Override
+    public String toString() {
+        return "timeouts " + connectTimeoutSeconds + "/" + readTimeoutSeconds + "/" + connectionRequestTimeoutSeconds +
+                "s, " + maxConnections + " connections (" + maxConnectionsPerRoute + " per route)";
+    }
+}
@@ -0,0 +1,139 @@
+package jenkins.plugins.slack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Stops calling a Slack endpoint that keeps failing, so builds fail fast instead of each waiting for a timeout.
+ *
+ * There is one circuit per workspace and endpoint. After {@link CircuitBreakerSettings#getThreshold()}
+ * consecutive failures the circuit opens and calls are rejected for the cool-down period. Then a single call is let
+ * through: if it succeeds the circuit closes, otherwise it opens again.
+ * Only connection problems and server errors count as failures, Slack rejecting a request doesn't.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackCircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(SlackCircuitBreaker.class.getName());
+
+    /**
+     * Error reported for calls rejected while the circuit is open.
+     */
+    public static final String CIRCUIT_OPEN = "circuit_open";
+
+    private static final SlackCircuitBreaker INSTANCE = new SlackCircuitBreaker(System::nanoTime, CircuitBreakerSettings::current);
+
+    private final LongSupplier nanoTime;
+    private final Supplier<CircuitBreakerSettings> settings;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    SlackCircuitBreaker(LongSupplier nanoTime, Supplier<CircuitBreakerSettings> settings) {
+        this.nanoTime = nanoTime;
+        this.settings = settings;
+    }
+
+    public static SlackCircuitBreaker get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param endpoint base URL of the endpoint
+     * @param token token identifying the workspace, may be null
+     * @return the key of the circuit for calls to the endpoint with the token
+     */
+    public static String key(String endpoint, String token) {
+        return endpoint + ' ' + (token == null ? "" : TokenDigest.of(token));
+    }
+
+    /**
+     * @return whether a call may be made, if so its outcome must be reported with {@link #succeeded} or {@link #failed}
+     */
+    public boolean tryAcquire(String key) {
+        if (settings.get().getThreshold() <= 0) {
+            return true;
+        }
+        return circuits.computeIfAbsent(key, k -> new Circuit()).tryAcquire(nanoTime.getAsLong());
+    }
+
+    public void succeeded(String key) {
+        Circuit circuit = circuits.get(key);
+        if (circuit != null && circuit.succeeded()) {
+            logger.info("Slack is reachable again, closing circuit for " + key);
+        }
+    }
+
+    public void failed(String key) {
+        CircuitBreakerSettings current = settings.get();
+        if (current.getThreshold() <= 0) {
+            return;
+        }
+        long coolDown = TimeUnit.SECONDS.toNanos(current.getCoolDownSeconds());
+        Circuit circuit = circuits.computeIfAbsent(key, k -> new Circuit());
+        if (circuit.failed(nanoTime.getAsLong(), current.getThreshold(), coolDown)) {
+            logger.warning(String.format("Calls to Slack keep failing, failing fast for %ds for %s",
+                    current.getCoolDownSeconds(), key));
+        }
+    }
+
+    /**
+     * @return number of circuits currently rejecting calls
+     */
+    public int getOpenCircuits() {
+        long now = nanoTime.getAsLong();
+        return (int) circuits.values().stream().filter(circuit -> circuit.isOpen(now)).count();
+    }
+
+    private static final class Circuit {
+        private int failures;
+        // only meaningful while open
+        private long openUntil;
+        private boolean open;
+        private boolean probing;
+
+        synchronized boolean tryAcquire(long now) {
+            if (!open) {
+                return true;
+            }
+            if (probing || openUntil - now > 0) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        /**
+         * @return whether the circuit was closed by this call
+         */
+        synchronized boolean succeeded() {
+            boolean wasOpen = open;
+            failures = 0;
+            open = false;
+            probing = false;
+            return wasOpen;
+        }
+
+        /**
+         * @return whether the circuit was opened by this call
+         */
+        synchronized boolean failed(long now, int threshold, long coolDown) {
+            failures++;
+            boolean opening = probing || (!open && failures >= threshold);
+            if (opening) {
+                open = true;
+                probing = false;
+                openUntil = now + coolDown;
+            }
+            return opening;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return open && (probing || openUntil - now > 0);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package jenkins.plugins.slack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Merges messages posted to the same channel in quick succession into one message.
+ *
+ * The first message to a channel is sent right away and opens a window. Messages arriving while the window is open
+ * are held back and sent as one message when it closes, which opens the next window. Callers don't wait for the window
+ * to close, a held back message counts as sent once it's queued and failures to send the batch are only logged. Texts, attachments and blocks
+ * are concatenated in arrival order within Slack's limits, a message that doesn't fit into the batch starts a new one.
+ */
+final class SlackMessageCoalescer {
+
+    private static final Logger logger = Logger.getLogger(SlackMessageCoalescer.class.getName());
+
+    static final int MAX_TEXT_LENGTH = 40000;
+    static final int MAX_ATTACHMENTS = 100;
+    static final int MAX_BLOCKS = 50;
+
+    private static final SlackMessageCoalescer INSTANCE = new SlackMessageCoalescer(Timer::get);
+
+    private final Supplier<ScheduledExecutorService> scheduler;
+    private final Map<String, Window> windows = new HashMap<>();
+
+    SlackMessageCoalescer(Supplier<ScheduledExecutorService> scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    static SlackMessageCoalescer get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key identifies the channel, messages are only merged with messages of the same key
+     * @param body {@code chat.postMessage} payload, it may be modified
+     * @param windowMillis how long messages following a post are held back
+     * @param sender sends a payload, the first message's sender is used for the whole batch
+     * @return the outcome of the post if the message was sent right away, otherwise a result completed as soon as the
+     * message is queued
+     */
+    CompletableFuture<SlackResult> submit(String key, JSONObject body, long windowMillis,
+                                          Function<JSONObject, CompletableFuture<SlackResult>> sender) {
+        Batch full;
+        Batch batch;
+        synchronized (this) {
+            Window window = windows.get(key);
+            if (window == null) {
+                windows.put(key, new Window(key, windowMillis));
+                full = null;
+                batch = null;
+            } else if (window.pending != null && window.pending.add(body)) {
+                return queued();
+            } else {
+                full = window.pending;
+                window.pending = new Batch(body, sender);
+                batch = window.pending;
+            }
+        }
+        if (full != null) {
+            full.send();
+        }
+        return batch != null ? queued() : sender.apply(body);
+    }
+
+    private static CompletableFuture<SlackResult> queued() {
+        return CompletableFuture.completedFuture(SlackResult.of(true, null));
+    }
+
+    synchronized int getOpenWindows() {
+        return windows.size();
+    }
+
+    private final class Window {
+        private final String key;
+        private final long windowMillis;
+        private Batch pending;
+
+        private Window(String key, long windowMillis) {
+            this.key = key;
+            this.windowMillis = windowMillis;
+            schedule();
+        }
+
+        private void schedule() {
+            scheduler.get().schedule(this::close, windowMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void close() {
+            Batch batch;
+            synchronized (SlackMessageCoalescer.this) {
+                batch = pending;
+                pending = null;
+                if (batch == null) {
+                    windows.remove(key, this);
+                    return;
+                }
+                // sending the batch opens the next window
+                schedule();
+            }
+            batch.send();
+        }
+    }
+
+    private static final class Batch {
+        private final JSONObject body;
+        private final Function<JSONObject, CompletableFuture<SlackResult>> sender;
+        private int messages = 1;
+
+        private Batch(JSONObject body, Function<JSONObject, CompletableFuture<SlackResult>> sender) {
+            this.body = body;
+            this.sender = sender;
+        }
+
+        /**
+         * @return whether the message was merged into the batch
+         */
+        private boolean add(JSONObject other) {
+            // with blocks the text is only a notification fallback, so it can't be combined with a text message
+            if (body.has("blocks") != other.has("blocks")) {
+                return false;
+            }
+            String text = join(body.optString("text", ""), other.optString("text", ""));
+            JSONArray attachments = concat(body.optJSONArray("attachments"), other.optJSONArray("attachments"));
+            JSONArray blocks = concat(body.optJSONArray("blocks"), other.optJSONArray("blocks"));
+            if (text.length() > MAX_TEXT_LENGTH || attachments.size() > MAX_ATTACHMENTS || blocks.size() > MAX_BLOCKS) {
+                return false;
+            }
+            if (!text.isEmpty()) {
+                body.put("text", text);
+            }
+            if (!attachments.isEmpty()) {
+                body.put("attachments", attachments);
+            }
+            if (!blocks.isEmpty()) {
+                body.put("blocks", blocks);
+            }
+            messages++;
+            return true;
+        }
+
+        private void send() {
+            logger.fine(() -> "Posting " + messages + " coalesced messages to " + body.optString("channel"));
+            sender.apply(body).whenComplete((sent, e) -> {
+                if (e != null || !sent.isOk()) {
+                    logger.warning(() -> "Failed to post " + messages + " coalesced messages to " + body.optString("channel")
+                            + ": " + (e != null ? e : sent.getError()));
+                }
+            });
+        }
+
+        private static String join(String text, String other) {
+            if (StringUtils.isEmpty(text)) {
+                return other;
+            }
+            return StringUtils.isEmpty(other) ? text : text + "\n" + other;
+        }
+
+        private static JSONArray concat(JSONArray array, JSONArray other) {
+            JSONArray result = new JSONArray();
+            if (array != null) {
+                result.addAll(array);
+            }
+            if (other != null) {
+                result.addAll(other);
+            }
+            return result;
+        }
+    }
+}
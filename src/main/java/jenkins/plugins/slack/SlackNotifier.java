@@ -28,11 +28,14 @@ import java.util.logging.Logger;
 import java.util.stream.Stream;
 import jenkins.model.Jenkins;
 import jenkins.plugins.slack.cache.SlackChannelIdCache;
+import jenkins.plugins.slack.cache.SlackUserDirectory;
 import jenkins.plugins.slack.config.GlobalCredentialMigrator;
 import jenkins.plugins.slack.logging.BuildAwareLogger;
 import jenkins.plugins.slack.logging.BuildKey;
 import jenkins.plugins.slack.logging.SlackNotificationsLogger;
 import jenkins.plugins.slack.matrix.MatrixTriggerMode;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
+import jenkins.plugins.slack.user.SlackUserIdCache;
 import jenkins.plugins.slack.user.SlackUserIdResolver;
 import jenkins.plugins.slack.user.SlackUserIdResolverDescriptor;
 import net.sf.json.JSONArray;
@@ -591,6 +594,9 @@ public class SlackNotifier extends Notifier {
                         .withUsername(username)
                         .withPopulatedToken(populatedToken)
                         .withSlackUserIdResolver(slackUserIdResolver)
+                        .withMaxConcurrentPosts(descriptor.getMaxConcurrentPosts())
+                        .withDeliverInBackground(descriptor.isDeliverInBackground())
+                        .withCoalesceWindowSeconds(descriptor.getCoalesceWindowSeconds())
         );
     }
 
@@ -647,6 +653,20 @@ public class SlackNotifier extends Notifier {
         private String room;
         private String sendAs;
         private SlackUserIdResolver slackUserIdResolver;
+        private int maxConcurrentPosts = StandardSlackService.DEFAULT_MAX_CONCURRENT_POSTS;
+        private boolean deliverInBackground;
+        private int coalesceWindowSeconds;
+        private int connectTimeoutSeconds = HttpClientSettings.DEFAULT_CONNECT_TIMEOUT_SECONDS;
+        private int readTimeoutSeconds = HttpClientSettings.DEFAULT_READ_TIMEOUT_SECONDS;
+        private int connectionRequestTimeoutSeconds = HttpClientSettings.DEFAULT_CONNECTION_REQUEST_TIMEOUT_SECONDS;
+        private int maxConnections = HttpClientSettings.DEFAULT_MAX_CONNECTIONS;
+        private int maxConnectionsPerRoute = HttpClientSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int circuitBreakerThreshold = CircuitBreakerSettings.DEFAULT_THRESHOLD;
+        private int circuitBreakerCoolDownSeconds = CircuitBreakerSettings.DEFAULT_COOL_DOWN_SECONDS;
+        private String eventsSigningSecretCredentialId;
+        private int userIdCacheMinutes = SlackUserIdCache.DEFAULT_TTL_MINUTES;
+        private int userIdNotFoundCacheMinutes = SlackUserIdCache.DEFAULT_NOT_FOUND_TTL_MINUTES;
+        private boolean prefetchCommitters;
 
         public DescriptorImpl() {
             load();
@@ -766,6 +786,162 @@ public class SlackNotifier extends Notifier {
             this.slackUserIdResolver = slackUserIdResolver;
         }
 
+        public int getMaxConcurrentPosts() {
+            return maxConcurrentPosts;
+        }
+
+        @DataBoundSetter
+        public void setMaxConcurrentPosts(int maxConcurrentPosts) {
+            this.maxConcurrentPosts = maxConcurrentPosts > 0 ? maxConcurrentPosts : StandardSlackService.DEFAULT_MAX_CONCURRENT_POSTS;
+        }
+
+        public boolean isDeliverInBackground() {
+            return deliverInBackground;
+        }
+
+        @DataBoundSetter
+        public void setDeliverInBackground(boolean deliverInBackground) {
+            this.deliverInBackground = deliverInBackground;
+        }
+
+        public int getCoalesceWindowSeconds() {
+            return coalesceWindowSeconds;
+        }
+
+        @DataBoundSetter
+        public void setCoalesceWindowSeconds(int coalesceWindowSeconds) {
+            this.coalesceWindowSeconds = Math.max(coalesceWindowSeconds, 0);
+        }
+
+        public int getConnectTimeoutSeconds() {
+            return connectTimeoutSeconds;
+        }
+
+        @DataBoundSetter
+        public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+            this.connectTimeoutSeconds = connectTimeoutSeconds > 0 ? connectTimeoutSeconds : HttpClientSettings.DEFAULT_CONNECT_TIMEOUT_SECONDS;
+        }
+
+        public int getReadTimeoutSeconds() {
+            return readTimeoutSeconds;
+        }
+
+        @DataBoundSetter
+        public void setReadTimeoutSeconds(int readTimeoutSeconds) {
+            this.readTimeoutSeconds = readTimeoutSeconds > 0 ? readTimeoutSeconds : HttpClientSettings.DEFAULT_READ_TIMEOUT_SECONDS;
+        }
+
+        public int getConnectionRequestTimeoutSeconds() {
+            return connectionRequestTimeoutSeconds;
+        }
+
+        @DataBoundSetter
+        public void setConnectionRequestTimeoutSeconds(int connectionRequestTimeoutSeconds) {
+            this.connectionRequestTimeoutSeconds = connectionRequestTimeoutSeconds > 0
+                    ? connectionRequestTimeoutSeconds : HttpClientSettings.DEFAULT_CONNECTION_REQUEST_TIMEOUT_SECONDS;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        @DataBoundSetter
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections > 0 ? maxConnections : HttpClientSettings.DEFAULT_MAX_CONNECTIONS;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        @DataBoundSetter
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute > 0
+                    ? maxConnectionsPerRoute : HttpClientSettings.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        }
+
+        public int getCircuitBreakerThreshold() {
+            return circuitBreakerThreshold;
+        }
+
+        @DataBoundSetter
+        public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+            this.circuitBreakerThreshold = Math.max(circuitBreakerThreshold, 0);
+        }
+
+        public int getCircuitBreakerCoolDownSeconds() {
+            return circuitBreakerCoolDownSeconds;
+        }
+
+        @DataBoundSetter
+        public void setCircuitBreakerCoolDownSeconds(int circuitBreakerCoolDownSeconds) {
+            this.circuitBreakerCoolDownSeconds = circuitBreakerCoolDownSeconds > 0
+                    ? circuitBreakerCoolDownSeconds : CircuitBreakerSettings.DEFAULT_COOL_DOWN_SECONDS;
+        }
+
+        public String getEventsSigningSecretCredentialId() {
+            return eventsSigningSecretCredentialId;
+        }
+
+        @DataBoundSetter
+        public void setEventsSigningSecretCredentialId(String eventsSigningSecretCredentialId) {
+            this.eventsSigningSecretCredentialId = Util.fixEmptyAndTrim(eventsSigningSecretCredentialId);
+        }
+
+        public int getUserIdCacheMinutes() {
+            return userIdCacheMinutes;
+        }
+
+        @DataBoundSetter
+        public void setUserIdCacheMinutes(int userIdCacheMinutes) {
+            this.userIdCacheMinutes = userIdCacheMinutes >= 0 ? userIdCacheMinutes : SlackUserIdCache.DEFAULT_TTL_MINUTES;
+        }
+
+        public int getUserIdNotFoundCacheMinutes() {
+            return userIdNotFoundCacheMinutes;
+        }
+
+        @DataBoundSetter
+        public void setUserIdNotFoundCacheMinutes(int userIdNotFoundCacheMinutes) {
+            this.userIdNotFoundCacheMinutes = userIdNotFoundCacheMinutes >= 0
+                    ? userIdNotFoundCacheMinutes : SlackUserIdCache.DEFAULT_NOT_FOUND_TTL_MINUTES;
+        }
+
+        public boolean isPrefetchCommitters() {
+            return prefetchCommitters;
+        }
+
+        @DataBoundSetter
+        public void setPrefetchCommitters(boolean prefetchCommitters) {
+            this.prefetchCommitters = prefetchCommitters;
+        }
+
+        @Restricted(NoExternalUse.class)
+        public HttpClientSettings getHttpClientSettings() {
+            return new HttpClientSettings(connectTimeoutSeconds, readTimeoutSeconds, connectionRequestTimeoutSeconds,
+                    maxConnections, maxConnectionsPerRoute);
+        }
+
+        @Restricted(NoExternalUse.class)
+        public CircuitBreakerSettings getCircuitBreakerSettings() {
+            return new CircuitBreakerSettings(circuitBreakerThreshold, circuitBreakerCoolDownSeconds);
+        }
+
+        @Restricted(NoExternalUse.class)
+        public SlackCircuitBreaker getCircuitBreaker() {
+            return SlackCircuitBreaker.get();
+        }
+
+        @Restricted(NoExternalUse.class)
+        public SlackRateLimiter getRateLimiter() {
+            return SlackRateLimiter.get();
+        }
+
+        @Restricted(NoExternalUse.class)
+        public SlackUserIdCache getUserIdCache() {
+            return SlackUserIdCache.get();
+        }
+
         public DescriptorExtensionList<SlackUserIdResolver, SlackUserIdResolverDescriptor> getSlackUserIdResolverDescriptors() {
             return SlackUserIdResolverDescriptor.all();
         }
@@ -817,6 +993,16 @@ public class SlackNotifier extends Notifier {
                     .includeAs(ACL.SYSTEM, context, StringCredentials.class, singletonList(new HostnameRequirement("*.slack.com")));
         }
 
+        public ListBoxModel doFillEventsSigningSecretCredentialIdItems() {
+            if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
+                return new StandardListBoxModel();
+            }
+
+            return new StandardListBoxModel()
+                    .includeEmptyValue()
+                    .includeAs(ACL.SYSTEM, Jenkins.get(), StringCredentials.class);
+        }
+
         public boolean isApplicable(Class<? extends AbstractProject> aClass) {
             return true;
         }
@@ -881,6 +1067,17 @@ public class SlackNotifier extends Notifier {
             return FormValidation.ok("Cache cleared");
         }
 
+        @POST
+        public FormValidation doClearUserIdCache() {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+
+            logger.info("Clearing user ID cache");
+            SlackUserIdCache.get().clear();
+            SlackUserDirectory.get().clear();
+
+            return FormValidation.ok("User ID cache cleared");
+        }
+
         @POST
         public FormValidation doTestConnectionGlobal(
                 @QueryParameter("baseUrl") final String baseUrl,
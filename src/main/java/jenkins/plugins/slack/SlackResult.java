@@ -0,0 +1,200 @@
+package jenkins.plugins.slack;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Outcome of a call to the Slack API, or of posting one message to several rooms.
+ */
+public class SlackResult {
+
+    private final boolean ok;
+    private final int statusCode;
+    private final String responseString;
+    private final String error;
+    private final String channel;
+    private final String ts;
+    private final String room;
+    private final List<SlackResult> roomResults;
+
+    private SlackResult(boolean ok, int statusCode, String responseString, String error, String channel, String ts) {
+        this(ok, statusCode, responseString, error, channel, ts, null, Collections.emptyList());
+    }
+
+    private SlackResult(boolean ok, int statusCode, String responseString, String error, String channel, String ts,
+                        String room, List<SlackResult> roomResults) {
+        this.ok = ok;
+        this.statusCode = statusCode;
+        this.responseString = responseString;
+        this.error = error;
+        this.channel = channel;
+        this.ts = ts;
+        this.room = room;
+        this.roomResults = roomResults;
+    }
+
+    /**
+     * Interprets an HTTP response from Slack.
+     * Bot user responses are JSON and must contain {@code "ok": true}, webhook responses only need a 200 status.
+     *
+     * @param botUser whether the request was made with a bot user token
+     * @param statusCode HTTP status code of the response
+     * @param body response body, may be null
+     */
+    public static SlackResult fromResponse(boolean botUser, int statusCode, String body) {
+        return fromResponseBody(botUser, statusCode, body != null ? body.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Interprets an HTTP response from Slack, see {@link #fromResponse(boolean, int, String)}.
+     * Only the fields needed are read from the response, the message Slack echoes back is skipped.
+     *
+     * @param body UTF-8 encoded response body, may be null
+     */
+    public static SlackResult fromResponseBody(boolean botUser, int statusCode, byte[] body) {
+        boolean ok = statusCode == HttpStatus.SC_OK;
+        String error = ok ? null : "HTTP " + statusCode;
+        String channel = null;
+        String ts = null;
+        if (botUser && body != null) {
+            Boolean slackOk = null;
+            try (JsonParser parser = SlackJson.FACTORY.createParser(body)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (!value.isScalarValue()) {
+                        parser.skipChildren();
+                    } else if ("ok".equals(name)) {
+                        slackOk = value == JsonToken.VALUE_TRUE || "true".equalsIgnoreCase(parser.getText());
+                    } else if ("error".equals(name)) {
+                        error = parser.getValueAsString(error);
+                    } else if ("channel".equals(name)) {
+                        channel = parser.getValueAsString();
+                    } else if ("ts".equals(name)) {
+                        ts = parser.getValueAsString();
+                    }
+                }
+                if (slackOk == null) {
+                    throw new JsonParseException(parser, "Missing ok field");
+                }
+                ok = ok && slackOk;
+            } catch (IOException ex) {
+                ok = false;
+                error = "invalid_json";
+            }
+        }
+        return new SlackResult(ok, statusCode, botUser && body != null ? new String(body, StandardCharsets.UTF_8) : null,
+                error, channel, ts);
+    }
+
+    /**
+     * A call that never got a response, e.g. because of a connection error.
+     */
+    public static SlackResult failure(String error) {
+        return new SlackResult(false, -1, null, error, null, null);
+    }
+
+    /**
+     * Adapts the outcome of a blocking call.
+     */
+    public static SlackResult of(boolean ok, String responseString) {
+        return new SlackResult(ok, ok ? HttpStatus.SC_OK : -1, responseString, null, null, null);
+    }
+
+    /**
+     * Combines the results of posting one message to several rooms.
+     * The combined result is only ok if every room is, its other details are taken from the last room like a
+     * sequential post would have reported them.
+     *
+     * @param roomResults results in the order the rooms were configured
+     */
+    public static SlackResult aggregate(List<SlackResult> roomResults) {
+        boolean ok = roomResults.stream().allMatch(SlackResult::isOk);
+        String error = ok ? null : roomResults.stream()
+                .filter(result -> !result.isOk())
+                .map(result -> result.room + ": " + result.error)
+                .collect(Collectors.joining(", "));
+        String responseString = null;
+        for (SlackResult result : roomResults) {
+            if (result.responseString != null) {
+                responseString = result.responseString;
+            }
+        }
+        SlackResult last = roomResults.isEmpty() ? of(true, null) : roomResults.get(roomResults.size() - 1);
+        return new SlackResult(ok, last.statusCode, responseString, error, last.channel, last.ts, null,
+                Collections.unmodifiableList(roomResults));
+    }
+
+    /**
+     * @return a copy of this result recording the room, as configured, the request was sent to
+     */
+    SlackResult forRoom(String room) {
+        return new SlackResult(ok, statusCode, responseString, error, channel, ts, room, roomResults);
+    }
+
+    public boolean isOk() {
+        return ok;
+    }
+
+    /**
+     * @return the HTTP status code, or -1 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the raw response for bot user requests, null otherwise
+     */
+    public String getResponseString() {
+        return responseString;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getTs() {
+        return ts;
+    }
+
+    /**
+     * @return the room the request was sent to, null for combined results
+     */
+    public String getRoom() {
+        return room;
+    }
+
+    /**
+     * @return the individual results when this result combines posts to several rooms, empty otherwise
+     */
+    public List<SlackResult> getRoomResults() {
+        return roomResults;
+    }
+
+    @Override
+    public String toString() {
+        return "SlackResult{" +
+                "room='" + room + '\'' +
+                ", ok=" + ok +
+                ", statusCode=" + statusCode +
+                ", error='" + error + '\'' +
+                ", channel='" + channel + '\'' +
+                ", ts='" + ts + '\'' +
+                '}';
+    }
+}
@@ -2,6 +2,7 @@ package jenkins.plugins.slack;
 
 import hudson.FilePath;
 import hudson.model.TaskListener;
+import java.util.concurrent.CompletableFuture;
 import net.sf.json.JSONArray;
 
 public interface SlackService {
@@ -32,4 +33,37 @@ public interface SlackService {
     boolean removeReaction(String channelId, String timestamp, String emojiName);
 
     String getResponseString();
+
+    /**
+     * Publish a message without blocking the calling thread.
+     * The default implementation delegates to {@link #publish(SlackRequest)}.
+     *
+     * @return a future completed with the outcome of the request, it is never completed exceptionally
+     */
+    default CompletableFuture<SlackResult> publishAsync(SlackRequest slackRequest) {
+        return CompletableFuture.completedFuture(SlackResult.of(publish(slackRequest), getResponseString()));
+    }
+
+    /**
+     * Variant of {@link #upload(FilePath, String, TaskListener)} that returns a future.
+     * The default implementation uploads on the calling thread. Implementations may wait for the upload on a pool
+     * thread instead, but uploading still occupies a thread until it's done.
+     */
+    default CompletableFuture<SlackResult> uploadAsync(FilePath workspace, String artifactIncludes, TaskListener log) {
+        return CompletableFuture.completedFuture(SlackResult.of(upload(workspace, artifactIncludes, log), null));
+    }
+
+    /**
+     * Asynchronous variant of {@link #addReaction(String, String, String)}.
+     */
+    default CompletableFuture<SlackResult> addReactionAsync(String channelId, String timestamp, String emojiName) {
+        return CompletableFuture.completedFuture(SlackResult.of(addReaction(channelId, timestamp, emojiName), getResponseString()));
+    }
+
+    /**
+     * Asynchronous variant of {@link #removeReaction(String, String, String)}.
+     */
+    default CompletableFuture<SlackResult> removeReactionAsync(String channelId, String timestamp, String emojiName) {
+        return CompletableFuture.completedFuture(SlackResult.of(removeReaction(channelId, timestamp, emojiName), getResponseString()));
+    }
 }
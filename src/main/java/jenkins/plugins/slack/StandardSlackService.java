@@ -3,18 +3,20 @@ package jenkins.plugins.slack;
 import com.google.common.annotations.VisibleForTesting;
 import hudson.AbortException;
 import hudson.FilePath;
-import hudson.ProxyConfiguration;
-import hudson.Util;
+import hudson.model.Computer;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -22,25 +24,32 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
 import jenkins.plugins.slack.cache.SlackChannelIdCache;
+import jenkins.plugins.slack.outbox.OutboxEntry;
+import jenkins.plugins.slack.outbox.SlackOutbox;
 import jenkins.plugins.slack.pipeline.SlackFileRequest;
 import jenkins.plugins.slack.pipeline.SlackUploadFileRunner;
+import jenkins.plugins.slack.pipeline.SlackUploadResult;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
 import jenkins.plugins.slack.user.SlackUserIdResolver;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpStatus;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.Method;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 
 public class StandardSlackService implements SlackService {
 
     private static final Logger logger = Logger.getLogger(StandardSlackService.class.getName());
+    public static final int DEFAULT_MAX_CONCURRENT_POSTS = 4;
+    private static final String CHAT_POST_MESSAGE = "chat.postMessage";
     static final Pattern JENKINS_CI_HOOK_REGEX = Pattern.compile("https://(?<teamDomain>.*)\\.slack\\.com/services/hooks/jenkins-ci.*");
+    private static final Pattern USER_ID_REGEX = Pattern.compile("[UW][A-Z0-9]{8,}");
 
     private final Run run;
     private String baseUrl;
@@ -50,10 +59,14 @@ public class StandardSlackService implements SlackService {
     private final boolean replyBroadcast;
     private final String iconEmoji;
     private final String username;
-    private String responseString;
+    // set by the HTTP client's threads once a post completes, read by the caller afterwards
+    private volatile String responseString;
     private String populatedToken;
     private final boolean notifyCommitters;
     private final SlackUserIdResolver userIdResolver;
+    private final int maxConcurrentPosts;
+    private final boolean deliverInBackground;
+    private final int coalesceWindowSeconds;
 
     /**
      * @deprecated use {@link #StandardSlackService(String, String, boolean, String, boolean, String)} instead}
@@ -148,12 +161,20 @@ public class StandardSlackService implements SlackService {
         this.populatedToken = standardSlackServiceBuilder.populatedToken;
         this.notifyCommitters = standardSlackServiceBuilder.notifyCommitters;
         this.userIdResolver = standardSlackServiceBuilder.userIdResolver;
+        this.maxConcurrentPosts = standardSlackServiceBuilder.maxConcurrentPosts > 0
+                ? standardSlackServiceBuilder.maxConcurrentPosts : DEFAULT_MAX_CONCURRENT_POSTS;
+        this.deliverInBackground = standardSlackServiceBuilder.deliverInBackground;
+        this.coalesceWindowSeconds = Math.max(standardSlackServiceBuilder.coalesceWindowSeconds, 0);
     }
 
     public static StandardSlackServiceBuilder builder() {
         return new StandardSlackServiceBuilder();
     }
 
+    /**
+     * @return the response of the last completed post, use {@link SlackResult#getResponseString()} of the post's
+     * result to get the response of a particular one
+     */
     public String getResponseString() {
         return responseString;
     }
@@ -186,62 +207,100 @@ public class StandardSlackService implements SlackService {
      * @return boolean indicating whether the API request succeeded
      */
     boolean postToSlack(String apiEndpoint, JSONObject body) {
-        boolean result = true;
+        return postToSlackAsync(apiEndpoint, body).join().isOk();
+    }
 
+    /**
+     * Make a non-blocking HTTP POST to the Slack API
+     *
+     * @param apiEndpoint - The API endpoint to request, e.g. `chat.postMessage`
+     * @param body - The payload body to be POSTed to the API
+     *
+     * @return a future completed with the outcome of the request, it is never completed exceptionally
+     */
+    CompletableFuture<SlackResult> postToSlackAsync(String apiEndpoint, JSONObject body) {
         if (baseUrl != null) {
             correctMisconfigurationOfBaseUrl();
         }
 
-        try (CloseableHttpClient client = getHttpClient()) {
-            HttpPost post;
-            String url;
+        SimpleHttpRequest post;
+        String url;
 
-            if (!botUser) {
-                url = "https://" + teamDomain + "." + "slack.com" + "/services/hooks/jenkins-ci?token=" + populatedToken;
-                if (!StringUtils.isEmpty(baseUrl)) {
-                    url = baseUrl + populatedToken;
-                }
-                post = new HttpPost(url);
+        if (!botUser) {
+            url = "https://" + teamDomain + "." + "slack.com" + "/services/hooks/jenkins-ci?token=" + populatedToken;
+            if (!StringUtils.isEmpty(baseUrl)) {
+                url = baseUrl + populatedToken;
+            }
+            post = SimpleHttpRequest.create(Method.POST.name(), url);
 
-            } else {
-                url = "https://slack.com/api/" + apiEndpoint;
+        } else {
+            url = "https://slack.com/api/" + apiEndpoint;
 
-                post = new HttpPost(url);
-                post.setHeader("Authorization", "Bearer " + populatedToken);
-            }
+            post = SimpleHttpRequest.create(Method.POST.name(), url);
+            post.setHeader("Authorization", "Bearer " + populatedToken);
+        }
 
-            post.setHeader("Content-Type", "application/json; charset=utf-8");
-            post.setEntity(new StringEntity(body.toString(), StandardCharsets.UTF_8));
-
-            try (CloseableHttpResponse response = client.execute(post)) {
-                int responseCode = response.getCode();
-                HttpEntity entity = response.getEntity();
-                if (botUser && entity != null) {
-                    responseString = EntityUtils.toString(entity);
-                    try {
-
-                        org.json.JSONObject slackResponse = new org.json.JSONObject(responseString);
-                        result = slackResponse.getBoolean("ok");
-                    } catch (org.json.JSONException ex) {
-                        logger.log(Level.WARNING, "Slack post may have failed.  Invalid JSON response: " + responseString);
-                        result = false;
-                    }
-                }
-                if (responseCode != HttpStatus.SC_OK || !result) {
-                    logger.log(Level.WARNING, "Slack post may have failed. Response: " + responseString);
-                    logger.log(Level.WARNING, "Response Code: " + responseCode);
-                    result = false;
-                } else {
-                    logger.fine("Posting succeeded");
-                }
-            } catch (Exception e) {
+        post.setBody(SlackJson.encode(body), ContentType.APPLICATION_JSON);
+
+        SlackCircuitBreaker circuitBreaker = getCircuitBreaker();
+        String circuit = SlackCircuitBreaker.key(getEndpoint(), populatedToken);
+        if (!circuitBreaker.tryAcquire(circuit)) {
+            logger.warning("Not posting to Slack, it has been failing repeatedly");
+            return CompletableFuture.completedFuture(SlackResult.failure(SlackCircuitBreaker.CIRCUIT_OPEN));
+        }
+
+        String method = botUser ? apiEndpoint : SlackRateLimiter.INCOMING_WEBHOOK;
+        // messages are limited per channel, a webhook posts to its own channel unless the payload names one
+        String channel = botUser ? body.optString("channel", null) : getEndpoint() + ' ' + body.optString("channel");
+        return send(method, channel, post, 1).handle((httpResponse, e) -> {
+            if (e != null) {
+                circuitBreaker.failed(circuit);
                 logger.log(Level.WARNING, "Error posting to Slack", e);
-                result = false;
+                return SlackResult.failure(e.toString());
             }
-        } catch (IOException e) {
-            logger.log(Level.WARNING, "Error closing HttpClient", e);
+            if (httpResponse.getCode() >= HttpStatus.SC_SERVER_ERROR) {
+                circuitBreaker.failed(circuit);
+            } else {
+                circuitBreaker.succeeded(circuit);
+            }
+            SlackResult result = SlackResult.fromResponseBody(botUser, httpResponse.getCode(), httpResponse.getBodyBytes());
+            if (result.getResponseString() != null) {
+                responseString = result.getResponseString();
+            }
+            if (!result.isOk()) {
+                logger.log(Level.WARNING, "Slack post may have failed. Response: " + responseString);
+                logger.log(Level.WARNING, "Response Code: " + httpResponse.getCode());
+            } else {
+                logger.fine("Posting succeeded");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return the endpoint posts are sent to, without the token
+     */
+    private String getEndpoint() {
+        if (botUser) {
+            return "https://slack.com/api/";
         }
-        return result;
+        return StringUtils.isEmpty(baseUrl) ? "https://" + teamDomain + ".slack.com/services/hooks/jenkins-ci" : baseUrl;
+    }
+
+    /**
+     * Sends the request once the rate limiter allows it, throttled requests are queued again.
+     */
+    private CompletableFuture<SimpleHttpResponse> send(String method, String channel, SimpleHttpRequest request, int attempt) {
+        SlackRateLimiter rateLimiter = getRateLimiter();
+        return rateLimiter.acquireAsync(populatedToken, method, channel)
+                .thenCompose(ignored -> execute(request))
+                .thenCompose(response -> {
+                    if (SlackRateLimiter.isThrottled(response) && attempt < SlackRateLimiter.MAX_ATTEMPTS) {
+                        rateLimiter.throttled(populatedToken, method, SlackRateLimiter.getRetryAfterSeconds(response));
+                        return send(method, channel, request, attempt + 1);
+                    }
+                    return CompletableFuture.completedFuture(response);
+                });
     }
 
     /**
@@ -253,62 +312,116 @@ public class StandardSlackService implements SlackService {
      * @return boolean indicating whether the API request succeeded
      */
     public boolean upload(FilePath workspace, String artifactIncludes, TaskListener log) {
+        if (workspace == null) {
+            logger.log(Level.WARNING, "Could not get workspace for current execution");
+            return false;
+        }
+
         boolean result = true;
-        if(workspace!=null) {
-            for(String roomId : roomIds) {
-                String channelId;
-                try {
-                    channelId = SlackChannelIdCache.getChannelId(populatedToken, roomId);
-                } catch (ExecutionException | InterruptedException e) {
-                    throw new RuntimeException(e);
-                } catch (AbortException e) {
-                    return false;
+        List<String> channelIds = new ArrayList<>();
+        for (String roomId : roomIds) {
+            try {
+                String channelId = getChannelId(roomId);
+                if (channelId == null && USER_ID_REGEX.matcher(roomId).matches()) {
+                    // a user ID which won't be found in the channel ID cache
+                    channelId = roomId;
                 }
-
-                SlackFileRequest slackFileRequest = new SlackFileRequest(
-                workspace, populatedToken, channelId, null, artifactIncludes, null);
-                try {
-                    workspace.getChannel().callAsync(new SlackUploadFileRunner(log, Jenkins.get().proxy, slackFileRequest)).get();
-                } catch (IllegalStateException | InterruptedException e) {
-                    logger.log(Level.WARNING, "Exception", e);
-                    result = false;
-                } catch (ExecutionException e) {
-                    logger.log(Level.WARNING, "ExecutionException", e);
-                    result = false;
-                } catch (IOException e) {
-                    logger.log(Level.WARNING, "Error closing HttpClient", e);
+                if (channelId == null) {
+                    // the other channels still get the files
+                    log.getLogger().println("Not uploading to Slack channel " + roomId + ", it wasn't found");
                     result = false;
+                } else if (!channelIds.contains(channelId)) {
+                    channelIds.add(channelId);
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "Failed to look up Slack channel " + roomId, e);
+                return false;
+            } catch (AbortException e) {
+                log.getLogger().println(e.getMessage());
+                result = false;
             }
-        } else {
-            logger.log(Level.WARNING, "Could not get workspace for current execution");
+        }
+        if (channelIds.isEmpty()) {
+            return false;
+        }
+
+        // the files are uploaded once and shared with all the channels
+        SlackFileRequest slackFileRequest = new SlackFileRequest(
+                workspace, populatedToken, String.join(",", channelIds), null, artifactIncludes, null);
+        try {
+            result &= uploadFiles(workspace, slackFileRequest, log).isOk();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARNING, "Interrupted while uploading to Slack", e);
+            result = false;
+        } catch (IllegalStateException e) {
+            logger.log(Level.WARNING, "Exception", e);
+            result = false;
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "ExecutionException", e);
+            result = false;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error closing HttpClient", e);
             result = false;
         }
         return result;
     }
 
+    @Override
+    public CompletableFuture<SlackResult> uploadAsync(FilePath workspace, String artifactIncludes, TaskListener log) {
+        // not the calling thread but a pool thread waits for the agent to upload the files
+        return CompletableFuture.supplyAsync(
+                () -> SlackResult.of(upload(workspace, artifactIncludes, log), null), Computer.threadPoolForRemoting);
+    }
+
     @Override
     public boolean publish(SlackRequest slackRequest) {
-        boolean result = true;
+        return publishAsync(slackRequest).join().isOk();
+    }
 
-        try (CloseableHttpClient client = getHttpClient()) {
-            // include committer userIds in roomIds
-            if (botUser && notifyCommitters && userIdResolver != null && run != null) {
-                userIdResolver.setAuthToken(populatedToken);
-                userIdResolver.setHttpClient(client);
-                List<String> userIds = userIdResolver.resolveUserIdsForRun(run);
-                roomIds.addAll(userIds.stream()
-                        .filter(Objects::nonNull)
-                        .distinct()
-                        .map(userId -> "@" + userId)
-                        .collect(Collectors.toList())
-                );
-            }
-        } catch (IOException e) {
-            logger.log(Level.WARNING, "Error closing HttpClient", e);
+    @Override
+    public CompletableFuture<SlackResult> publishAsync(SlackRequest slackRequest) {
+        boolean toCommitters = botUser && notifyCommitters && userIdResolver != null && run != null;
+        // the outbox looks up the committers on delivery, so the build only waits for the entry to be written
+        if (deliverInBackground && addToOutbox(slackRequest, toCommitters)) {
+            return CompletableFuture.completedFuture(SlackResult.of(true, null));
+        }
+        if (!toCommitters) {
+            return publishTo(slackRequest, new ArrayList<>(roomIds));
         }
 
-        for (String roomId : roomIds) {
+        // looking up the committers can take a while, so it doesn't happen on the calling thread
+        return CompletableFuture.supplyAsync(this::resolveCommitters, Computer.threadPoolForRemoting)
+                .exceptionally(e -> {
+                    logger.log(Level.WARNING, "Failed to resolve the Slack user IDs of the committers", e);
+                    return Collections.emptyList();
+                })
+                .thenCompose(committers -> {
+                    List<String> targets = new ArrayList<>(roomIds);
+                    targets.addAll(committers);
+                    return publishTo(slackRequest, targets);
+                });
+    }
+
+    /**
+     * @return the committers of the run as targets to send direct messages to
+     */
+    private List<String> resolveCommitters() {
+        userIdResolver.setHttpClient(getHttpClient());
+        return userIdResolver.resolveUserIdsForRun(run, populatedToken).stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(userId -> "@" + userId)
+                .collect(Collectors.toList());
+    }
+
+    private CompletableFuture<SlackResult> publishTo(SlackRequest slackRequest, List<String> targets) {
+        List<RoomPost> posts = new ArrayList<>();
+        for (String target : targets) {
+            String roomId = target;
             String threadTs = "";
 
             //thread_ts is passed once with roomId: Ex: roomId:threadTs
@@ -337,19 +450,87 @@ public class StandardSlackService implements SlackService {
                 }
             }
 
-            String apiEndpoint = "chat.postMessage";
+            String apiEndpoint = CHAT_POST_MESSAGE;
             String timestamp = slackRequest.getTimestamp();
             if (StringUtils.isNotEmpty(timestamp)) {
                 json.put("ts", timestamp);
                 apiEndpoint = "chat.update";
             }
 
-            logger.fine("Posting: to " + roomId + " on " + teamDomain + ":  " + json.toString());
+            String room = roomId;
+            logger.fine(() -> "Posting: to " + room + " on " + teamDomain + ":  " + json);
 
-            boolean individualResult = postToSlack(apiEndpoint, json);
-            result = result && individualResult;
+            posts.add(new RoomPost(target, apiEndpoint, json));
         }
-        return result;
+        return postToRooms(posts);
+    }
+
+    private boolean addToOutbox(SlackRequest slackRequest, boolean committers) {
+        try {
+            SlackOutbox.get().append(new OutboxEntry(baseUrl, teamDomain, botUser, String.join(",", roomIds),
+                    replyBroadcast, iconEmoji, username, populatedToken, maxConcurrentPosts, slackRequest,
+                    committers ? run : null, committers ? userIdResolver : null));
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to add notification to the Slack outbox, sending it right away", e);
+            return false;
+        }
+    }
+
+    /**
+     * Posts to all rooms with at most {@link #maxConcurrentPosts} requests in flight.
+     */
+    private CompletableFuture<SlackResult> postToRooms(List<RoomPost> posts) {
+        SlackResult[] results = new SlackResult[posts.size()];
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(maxConcurrentPosts, posts.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = postNext(posts, results, next);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(ignored -> {
+            SlackResult result = SlackResult.aggregate(Arrays.asList(results));
+            // report the same response a sequential post would have, regardless of completion order
+            if (result.getResponseString() != null) {
+                responseString = result.getResponseString();
+            }
+            if (!result.isOk()) {
+                logger.log(Level.WARNING, "Slack post failed for " + result.getError());
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<Void> postNext(List<RoomPost> posts, SlackResult[] results, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= posts.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        RoomPost post = posts.get(index);
+        return post(post).thenCompose(result -> {
+            results[index] = result.forRoom(post.roomId);
+            return postNext(posts, results, next);
+        });
+    }
+
+    private CompletableFuture<SlackResult> post(RoomPost post) {
+        // only new messages can be merged, an update has to stay a message of its own
+        if (coalesceWindowSeconds > 0 && CHAT_POST_MESSAGE.equals(post.apiEndpoint)) {
+            return SlackMessageCoalescer.get().submit(coalescingKey(post.body), post.body,
+                    TimeUnit.SECONDS.toMillis(coalesceWindowSeconds), body -> postToSlackAsync(post.apiEndpoint, body));
+        }
+        return postToSlackAsync(post.apiEndpoint, post.body);
+    }
+
+    /**
+     * Messages can be merged when they go to the same destination and only differ in their content.
+     */
+    private String coalescingKey(JSONObject body) {
+        JSONObject destination = JSONObject.fromObject(body);
+        destination.remove("text");
+        destination.remove("attachments");
+        destination.remove("blocks");
+        String endpoint = botUser ? "" : baseUrl + teamDomain;
+        return TokenDigest.of(String.valueOf(populatedToken)) + ' ' + endpoint + ' ' + destination;
     }
 
     @Override
@@ -432,10 +613,23 @@ public class StandardSlackService implements SlackService {
                 .build()
                 .getBody();
 
-        logger.fine("Adding reaction:  " + json.toString());
+        logger.fine(() -> "Adding reaction:  " + json);
         return postToSlack("reactions.add", json);
     }
 
+    @Override
+    public CompletableFuture<SlackResult> addReactionAsync(String channelId, String timestamp, String emojiName) {
+        JSONObject json = SlackReactionRequest.builder()
+                .withChannelId(channelId)
+                .withTimestamp(timestamp)
+                .withEmojiName(emojiName)
+                .build()
+                .getBody();
+
+        logger.fine(() -> "Adding reaction:  " + json);
+        return postToSlackAsync("reactions.add", json);
+    }
+
     /**
      * Remove an emoji reaction from a message.
      */
@@ -448,10 +642,23 @@ public class StandardSlackService implements SlackService {
                 .build()
                 .getBody();
 
-        logger.fine("Removing reaction:  " + json.toString());
+        logger.fine(() -> "Removing reaction:  " + json);
         return postToSlack("reactions.remove", json);
     }
 
+    @Override
+    public CompletableFuture<SlackResult> removeReactionAsync(String channelId, String timestamp, String emojiName) {
+        JSONObject json = SlackReactionRequest.builder()
+                .withChannelId(channelId)
+                .withTimestamp(timestamp)
+                .withEmojiName(emojiName)
+                .build()
+                .getBody();
+
+        logger.fine(() -> "Removing reaction:  " + json);
+        return postToSlackAsync("reactions.remove", json);
+    }
+
     private String getTokenToUse(String authTokenCredentialId, String token) {
         if (!StringUtils.isEmpty(authTokenCredentialId)) {
             StringCredentials credentials = CredentialsObtainer.lookupCredentials(authTokenCredentialId);
@@ -475,14 +682,74 @@ public class StandardSlackService implements SlackService {
         return iconEmoji;
     }
 
+    /**
+     * @return the ID of the channel, null if there's no channel with that name
+     */
+    protected String getChannelId(String roomId) throws ExecutionException, InterruptedException, AbortException {
+        return SlackChannelIdCache.getChannelId(populatedToken, roomId);
+    }
+
+    /**
+     * Uploads the files on the agent the workspace is on.
+     */
+    protected SlackUploadResult uploadFiles(FilePath workspace, SlackFileRequest slackFileRequest, TaskListener log)
+            throws IOException, InterruptedException, ExecutionException {
+        return workspace.getChannel().callAsync(new SlackUploadFileRunner(log, Jenkins.get().proxy, slackFileRequest)).get();
+    }
+
+    /**
+     * @return the shared pooled client, callers must not close it
+     */
     protected CloseableHttpClient getHttpClient() {
-        Jenkins jenkins = Jenkins.getInstanceOrNull();
-        ProxyConfiguration proxy = jenkins != null ? jenkins.proxy : null;
-        return HttpClient.getCloseableHttpClient(proxy);
+        return HttpClientRegistry.getHttpClient();
+    }
+
+    protected SlackRateLimiter getRateLimiter() {
+        return SlackRateLimiter.get();
+    }
+
+    protected SlackCircuitBreaker getCircuitBreaker() {
+        return SlackCircuitBreaker.get();
+    }
+
+    /**
+     * Sends a request on the shared asynchronous client, the returned future completes on one of its I/O threads.
+     */
+    protected CompletableFuture<SimpleHttpResponse> execute(SimpleHttpRequest request) {
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        HttpClientRegistry.getHttpAsyncClient().execute(request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
     }
 
     @VisibleForTesting
     String getTeamDomain() {
         return teamDomain;
     }
+
+    private static final class RoomPost {
+        private final String roomId;
+        private final String apiEndpoint;
+        private final JSONObject body;
+
+        private RoomPost(String roomId, String apiEndpoint, JSONObject body) {
+            this.roomId = roomId;
+            this.apiEndpoint = apiEndpoint;
+            this.body = body;
+        }
+    }
 }
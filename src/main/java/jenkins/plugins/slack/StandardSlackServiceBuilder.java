@@ -16,6 +16,9 @@ public class StandardSlackServiceBuilder {
     String populatedToken;
     boolean notifyCommitters;
     SlackUserIdResolver userIdResolver;
+    int maxConcurrentPosts;
+    boolean deliverInBackground;
+    int coalesceWindowSeconds;
 
     public StandardSlackServiceBuilder() {
     }
@@ -75,6 +78,33 @@ public class StandardSlackServiceBuilder {
         return this;
     }
 
+    /**
+     * @param maxConcurrentPosts how many rooms are posted to at the same time, values below 1 use the default
+     */
+    public StandardSlackServiceBuilder withMaxConcurrentPosts(int maxConcurrentPosts) {
+        this.maxConcurrentPosts = maxConcurrentPosts;
+        return this;
+    }
+
+    /**
+     * @param deliverInBackground whether messages are queued in the outbox instead of being sent right away
+     */
+    public StandardSlackServiceBuilder withDeliverInBackground(boolean deliverInBackground) {
+        this.deliverInBackground = deliverInBackground;
+        return this;
+    }
+
+    /**
+     * Only for callers that ignore the response of a post: a message that is held back is reported as sent once it's
+     * queued, without a response, and is delivered when the window closes.
+     *
+     * @param coalesceWindowSeconds for how long messages following a post to a channel are merged, 0 disables merging
+     */
+    public StandardSlackServiceBuilder withCoalesceWindowSeconds(int coalesceWindowSeconds) {
+        this.coalesceWindowSeconds = coalesceWindowSeconds;
+        return this;
+    }
+
     public StandardSlackService build() { return new StandardSlackService(this); }
 
 }
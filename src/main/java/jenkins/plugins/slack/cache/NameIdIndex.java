@@ -0,0 +1,252 @@
+package jenkins.plugins.slack.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable name to ID lookup that needs a fraction of the memory of a {@link java.util.HashMap}, used for the
+ * channels of a workspace and the email addresses of its users.
+ *
+ * Names are stored as UTF-8 in one byte array, sorted so they can be binary searched, and the ASCII IDs are packed
+ * into another byte array with a fixed width per entry. The positions sorted by ID let IDs be binary searched as
+ * well. A workspace with 100k channels takes about 3.5 MB instead of about 15 MB.
+ */
+final class NameIdIndex {
+
+    // rough object sizes with compressed oops, used to compare with a HashMap<String, String>
+    private static final int OBJECT_HEADER = 16;
+    private static final int STRING = 24 + OBJECT_HEADER;
+    private static final int MAP_NODE = 32;
+    private static final int MAP_BUCKET = 4;
+
+    private final byte[] names;
+    private final int[] offsets;
+    private final byte[] ids;
+    private final int idWidth;
+    // positions of the entries in order of their IDs
+    private final int[] byId;
+
+    private NameIdIndex(byte[] names, int[] offsets, byte[] ids, int idWidth) {
+        this.names = names;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.idWidth = idWidth;
+        this.byId = sortById();
+    }
+
+    static NameIdIndex of(Map<String, String> entries) {
+        byte[][] sortedNames = new byte[entries.size()][];
+        int i = 0;
+        int nameBytes = 0;
+        int idWidth = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            sortedNames[i++] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            nameBytes += sortedNames[i - 1].length;
+            idWidth = Math.max(idWidth, entry.getValue().length());
+        }
+        Arrays.sort(sortedNames, (Comparator<byte[]>) Arrays::compareUnsigned);
+
+        byte[] names = new byte[nameBytes];
+        int[] offsets = new int[sortedNames.length + 1];
+        byte[] ids = new byte[sortedNames.length * idWidth];
+        int offset = 0;
+        for (i = 0; i < sortedNames.length; i++) {
+            byte[] name = sortedNames[i];
+            System.arraycopy(name, 0, names, offset, name.length);
+            offsets[i] = offset;
+            offset += name.length;
+            // shorter IDs are padded with zeros
+            byte[] id = entries.get(new String(name, StandardCharsets.UTF_8)).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(id, 0, ids, i * idWidth, id.length);
+        }
+        offsets[sortedNames.length] = offset;
+        return new NameIdIndex(names, offsets, ids, idWidth);
+    }
+
+    /**
+     * @return the ID of the entry, null if there's no entry with that name
+     */
+    String get(String name) {
+        int index = indexOf(name.getBytes(StandardCharsets.UTF_8));
+        return index >= 0 ? id(index) : null;
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    boolean containsId(String id) {
+        return indexOfId(id) >= 0;
+    }
+
+    /**
+     * @return a copy of the index where the ID has the given name, replacing any previous name of the ID
+     */
+    NameIdIndex with(String name, String id) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int named = indexOf(key);
+        int previous = indexOfId(id);
+        if (named >= 0 && named == previous) {
+            return this;
+        }
+        // like a map, an ID that had the name before loses it
+        int position = named >= 0 ? named : -(named + 1);
+        return copy(previous, named, position, key, id);
+    }
+
+    /**
+     * @return a copy of the index without the ID
+     */
+    NameIdIndex without(String id) {
+        int previous = indexOfId(id);
+        return previous >= 0 ? copy(previous, -1, -1, null, null) : this;
+    }
+
+    /**
+     * Copies the sorted arrays once, leaving out up to two entries and inserting one before the given position.
+     */
+    private NameIdIndex copy(int removed, int otherRemoved, int position, byte[] name, String id) {
+        int count = size();
+        int nameBytes = names.length;
+        for (int index : new int[] {removed, otherRemoved == removed ? -1 : otherRemoved}) {
+            if (index >= 0) {
+                count--;
+                nameBytes -= offsets[index + 1] - offsets[index];
+            }
+        }
+        int width = idWidth;
+        if (name != null) {
+            count++;
+            nameBytes += name.length;
+            width = Math.max(width, id.length());
+        }
+
+        byte[] copiedNames = new byte[nameBytes];
+        int[] copiedOffsets = new int[count + 1];
+        byte[] copiedIds = new byte[count * width];
+        int offset = 0;
+        int target = 0;
+        for (int i = 0; i <= size(); i++) {
+            if (i == position) {
+                System.arraycopy(name, 0, copiedNames, offset, name.length);
+                copiedOffsets[target] = offset;
+                offset += name.length;
+                for (int c = 0; c < id.length(); c++) {
+                    copiedIds[target * width + c] = (byte) id.charAt(c);
+                }
+                target++;
+            }
+            if (i < size() && i != removed && i != otherRemoved) {
+                int length = offsets[i + 1] - offsets[i];
+                System.arraycopy(names, offsets[i], copiedNames, offset, length);
+                copiedOffsets[target] = offset;
+                offset += length;
+                System.arraycopy(ids, i * idWidth, copiedIds, target * width, idWidth);
+                target++;
+            }
+        }
+        copiedOffsets[count] = offset;
+        return new NameIdIndex(copiedNames, copiedOffsets, copiedIds, width);
+    }
+
+    /**
+     * @return the position of the name, or {@code -(insertion point) - 1} like {@link Arrays#binarySearch}
+     */
+    private int indexOf(byte[] key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Arrays.compareUnsigned(names, offsets[middle], offsets[middle + 1], key, 0, key.length);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int[] sortById() {
+        Integer[] positions = new Integer[size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> compareId(a, ids, b * idWidth));
+        int[] sorted = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sorted[i] = positions[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the position of the ID, -1 if there's no entry with that ID
+     */
+    private int indexOfId(String id) {
+        if (id.length() > idWidth) {
+            return -1;
+        }
+        // padded like the stored IDs, so they're compared exactly
+        byte[] key = new byte[idWidth];
+        for (int c = 0; c < id.length(); c++) {
+            key[c] = (byte) id.charAt(c);
+        }
+        int low = 0;
+        int high = byId.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareId(byId[middle], key, 0);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return byId[middle];
+            }
+        }
+        return -1;
+    }
+
+    private int compareId(int index, byte[] other, int otherStart) {
+        return Arrays.compareUnsigned(ids, index * idWidth, (index + 1) * idWidth, other, otherStart, otherStart + idWidth);
+    }
+
+    Map<String, String> toMap() {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < size(); i++) {
+            entries.put(new String(names, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8), id(i));
+        }
+        return entries;
+    }
+
+    private String id(int index) {
+        int start = index * idWidth;
+        int end = start;
+        while (end < start + idWidth && ids[end] != 0) {
+            end++;
+        }
+        return new String(ids, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return approximate heap size of the index in bytes
+     */
+    long getMemoryFootprint() {
+        return 4L * OBJECT_HEADER + names.length + 4L * offsets.length + ids.length + 4L * byId.length;
+    }
+
+    /**
+     * @return approximate heap size a {@code HashMap<String, String>} with the same entries would take
+     */
+    long getMapMemoryFootprint() {
+        long strings = 2L * size() * STRING + names.length + (long) size() * idWidth;
+        long table = Integer.highestOneBit(Math.max(size() * 4 / 3, 1)) * 2L * MAP_BUCKET;
+        return OBJECT_HEADER + (long) size() * MAP_NODE + strings + table;
+    }
+}
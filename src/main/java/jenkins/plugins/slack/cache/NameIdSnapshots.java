@@ -0,0 +1,118 @@
+package jenkins.plugins.slack.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.plugins.slack.TokenDigest;
+
+/**
+ * Name to ID maps of each workspace saved to disk, so they are available right after a restart. Used for the
+ * workspace's channels, the email addresses of its users and the files uploaded to it.
+ *
+ * Each map is stored in a gzipped file of {@code name<TAB>id} lines, named after the {@link TokenDigest} of its key,
+ * usually the token.
+ */
+final class NameIdSnapshots {
+
+    private static final Logger logger = Logger.getLogger(NameIdSnapshots.class.getName());
+
+    private static final String EXTENSION = ".gz";
+
+    private final File directory;
+    private final String header;
+
+    /**
+     * @param header first line of each file, identifies what is stored and in which format
+     */
+    NameIdSnapshots(File directory, String header) {
+        this.directory = directory;
+        this.header = header;
+    }
+
+    /**
+     * @return the saved map, null if there is none or it can't be read
+     */
+    Map<String, String> load(String key) {
+        Path file = getFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            if (!header.equals(reader.readLine())) {
+                logger.warning("Ignoring Slack snapshot in unknown format: " + file);
+                return null;
+            }
+            Map<String, String> entries = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    entries.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+            return entries;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read Slack snapshot " + file, e);
+            return null;
+        }
+    }
+
+    void save(String key, Map<String, String> entries) {
+        Path file = getFile(key);
+        try {
+            Files.createDirectories(directory.toPath());
+            Path temp = Files.createTempFile(directory.toPath(), "snapshot", ".tmp");
+            try {
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                    writer.write(header);
+                    writer.write('\n');
+                    for (Map.Entry<String, String> entry : entries.entrySet()) {
+                        writer.write(entry.getKey());
+                        writer.write('\t');
+                        writer.write(entry.getValue());
+                        writer.write('\n');
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to save Slack snapshot " + file, e);
+        }
+    }
+
+    void clear() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to delete Slack snapshot " + file, e);
+                }
+            }
+        }
+    }
+
+    // the file name must not reveal the token
+    private Path getFile(String key) {
+        return new File(directory, TokenDigest.of(key) + EXTENSION).toPath();
+    }
+}
@@ -0,0 +1,46 @@
+package jenkins.plugins.slack.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent callers share one in-flight computation per key instead of each starting their own.
+ */
+final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param start starts the computation, only called when none is in flight for the key
+     * @return the in-flight computation for the key
+     */
+    CompletableFuture<V> run(K key, Function<K, CompletableFuture<V>> start) {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<V> started;
+        try {
+            started = start.apply(key);
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, e) -> {
+            // remove first, so callers arriving after completion start a new computation
+            inFlight.remove(key, result);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+}
@@ -1,33 +1,45 @@
 package jenkins.plugins.slack.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
 import hudson.AbortException;
+import hudson.model.Computer;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URISyntaxException;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
-import jenkins.plugins.slack.HttpClient;
+import jenkins.plugins.slack.HttpClientRegistry;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
+import jenkins.util.Timer;
 import org.apache.hc.client5.http.HttpRequestRetryStrategy;
 import org.apache.hc.client5.http.fluent.Request;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpRequest;
 import org.apache.hc.core5.http.HttpResponse;
-import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.net.URIBuilder;
 import org.apache.hc.core5.util.TimeValue;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -37,28 +49,44 @@ public class SlackChannelIdCache {
     private static final Logger logger = Logger.getLogger(SlackChannelIdCache.class.getName());
 
     // cache that includes all channel names and IDs for each workspace used
-    private static final LoadingCache<String, Map<String, String>> CHANNEL_METADATA_CACHE = Caffeine.newBuilder()
+    private static final LoadingCache<String, NameIdIndex> CHANNEL_METADATA_CACHE = Caffeine.newBuilder()
             .maximumSize(100)
             .refreshAfterWrite(Duration.ofHours(24))
             .build(SlackChannelIdCache::populateCache);
+    // stops mistyped channel names from fetching all channels of the workspace over and over
+    private static final UnknownChannelCache UNKNOWN_CHANNELS = new UnknownChannelCache(Ticker.systemTicker());
+    // concurrent lookups share one refresh of a workspace's channel list
+    private static final SingleFlight<String, NameIdIndex> REFRESHES = new SingleFlight<>();
+    private static final Duration REFRESH_TIMEOUT = Duration.ofMinutes(2);
+    private static final String SNAPSHOT_DIRECTORY = "slack-channel-cache";
+    private static final String SNAPSHOT_HEADER = "slack-channels 1";
     private static final int MAX_RETRIES = 10;
-
-    private static Map<String, String> populateCache(String token) {
-        HttpClientBuilder closeableHttpClientBuilder = HttpClient.getCloseableHttpClientBuilder(Jenkins.get().getProxy())
+    private static final String CONVERSATIONS_LIST_METHOD = "conversations.list";
+    private static final String CONVERSATIONS_INFO_METHOD = "conversations.info";
+    private static final String AUTH_TEST_METHOD = "auth.test";
+    // team ID of each workspace, events only say which team they come from
+    private static final Map<String, String> TEAMS = new ConcurrentHashMap<>();
+    // workspaces whose team couldn't be determined, so a burst of events doesn't ask Slack over and over
+    private static final Cache<String, Boolean> UNKNOWN_TEAMS = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    // workspaces whose channels changed since their snapshot was saved
+    private static final Set<String> PENDING_SNAPSHOTS = ConcurrentHashMap.newKeySet();
+    private static final long SNAPSHOT_DELAY_SECONDS = 30;
+
+    private static NameIdIndex populateCache(String token) {
+        HttpClientBuilder closeableHttpClientBuilder = HttpClientRegistry.getHttpClientBuilder(Jenkins.get().getProxy())
                 .setRetryStrategy(new HttpRequestRetryStrategy() {
 
-                    private long retryInterval;
-
                     @Override
                     public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
                         boolean shouldRetry = executionCount <= MAX_RETRIES &&
-                                response.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS;
+                                SlackRateLimiter.isThrottled(response);
                         if (shouldRetry) {
-                            Header firstHeader = response.getFirstHeader("Retry-After");
-                            if (firstHeader != null) {
-                                retryInterval = Long.parseLong(firstHeader.getValue()) * 1000L;
-                                logger.info(String.format("Rate limited by Slack, retrying in %dms", retryInterval));
-                            }
+                            // let other calls with this token back off as well
+                            SlackRateLimiter.get().throttled(token, CONVERSATIONS_LIST_METHOD,
+                                    SlackRateLimiter.getRetryAfterSeconds(response));
                         }
                         return shouldRetry;
                     }
@@ -70,11 +98,19 @@ public class SlackChannelIdCache {
 
                     @Override
                     public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
-                        return TimeValue.ofSeconds(retryInterval);
+                        // public and private channels are fetched concurrently, so don't keep state here
+                        return TimeValue.ofSeconds(SlackRateLimiter.getRetryAfterSeconds(response));
                     }
                 });
+        // shares the registry's connection pool, closing this client leaves the pool open
         try (CloseableHttpClient client = closeableHttpClientBuilder.build()) {
-            return convertChannelNameToId(client, token, new HashMap<>(), null);
+            Map<String, String> channels = convertChannelNameToId(client, token);
+            NameIdIndex index = NameIdIndex.of(channels);
+            logger.info(String.format("Indexed %d Slack channels in %d KB, a map would take about %d KB",
+                    index.size(), index.getMemoryFootprint() / 1024, index.getMapMemoryFootprint() / 1024));
+            UNKNOWN_CHANNELS.refreshed(token);
+            snapshots().save(token, channels);
+            return index;
         } catch (IOException | URISyntaxException e) {
             throw new RuntimeException(e);
         }
@@ -86,114 +122,309 @@ public class SlackChannelIdCache {
             return channelName;
         }
 
-        Map<String, String> channelNameToIdMap = CHANNEL_METADATA_CACHE.get(botUserToken);
+        NameIdIndex channelNameToIdMap = CHANNEL_METADATA_CACHE.getIfPresent(botUserToken);
+        if (channelNameToIdMap == null) {
+            channelNameToIdMap = loadSnapshot(botUserToken);
+        }
+        if (channelNameToIdMap == null) {
+            channelNameToIdMap = awaitRefresh(botUserToken, channelName);
+        }
         String channelId = channelNameToIdMap.get(channelName);
 
-        // most likely is that a new channel has been created since the last cache refresh
-        // or a typo in the channel name, a bit risky in larger workspaces but shouldn't happen too often
         if (channelId == null) {
-            try {
-                CompletableFuture<Map<String, String>> newResult = CHANNEL_METADATA_CACHE.refresh(botUserToken);
-                channelNameToIdMap = newResult.get();
-            } catch (CompletionException e) {
-                throw new AbortException("Failed uploading file to slack, channel not found: " + channelName + ", error: " + e.getMessage());
+            boolean refreshing = REFRESHES.isInFlight(botUserToken);
+            if (!refreshing && UNKNOWN_CHANNELS.isUnknown(botUserToken, channelName)) {
+                logger.fine("Channel " + channelName + " wasn't found recently, not looking it up again");
+                return null;
             }
 
-            channelId = channelNameToIdMap.get(channelName);
+            // most likely is that a new channel has been created since the last cache refresh
+            // or a typo in the channel name, so refresh at most every few minutes per workspace
+            // and let concurrent lookups wait for the same refresh
+            if (refreshing || UNKNOWN_CHANNELS.tryRefresh(botUserToken)) {
+                channelNameToIdMap = awaitRefresh(botUserToken, channelName);
+                channelId = channelNameToIdMap.get(channelName);
+            }
+            if (channelId == null) {
+                UNKNOWN_CHANNELS.unknown(botUserToken, channelName);
+            }
         }
 
         return channelId;
     }
 
-    private static String cleanChannelName(String channelName) {
-        String[] splitForThread = channelName.split(":", 2);
-        String channel = channelName;
-        if (splitForThread.length == 2) {
-            channel = splitForThread[0];
+    /**
+     * Serves the channels saved before the last restart right away and brings them up to date in the background.
+     */
+    private static NameIdIndex loadSnapshot(String botUserToken) {
+        boolean[] loaded = new boolean[1];
+        NameIdIndex channels = CHANNEL_METADATA_CACHE.asMap().computeIfAbsent(botUserToken, token -> {
+            Map<String, String> snapshot = snapshots().load(token);
+            loaded[0] = snapshot != null;
+            return snapshot != null ? NameIdIndex.of(snapshot) : null;
+        });
+        if (loaded[0]) {
+            logger.fine("Using saved Slack channels until the channel list is refreshed");
+            UNKNOWN_CHANNELS.tryRefresh(botUserToken);
+            REFRESHES.run(botUserToken, CHANNEL_METADATA_CACHE::refresh);
         }
-        if (channel.startsWith("#")) {
-            return channel.substring(1);
-        }
-        return channel;
-    }
-
-
-    private static Map<String, String> convertChannelNameToId(CloseableHttpClient client, String token, Map<String, String> channels, String cursor) throws IOException, URISyntaxException {
-        convertPublicChannelNameToId(client, token, channels, cursor);
-        convertPrivateChannelNameToId(client, token, channels, cursor);
         return channels;
     }
 
-    private static Map<String, String> convertPublicChannelNameToId(CloseableHttpClient client, String token, Map<String, String> channels, String cursor) throws IOException, URISyntaxException {
-        URIBuilder uriBuilder = new URIBuilder("https://slack.com/api/conversations.list")
-                .addParameter("exclude_archived", "true")
-                .addParameter("types", "public_channel")
-                .addParameter("limit", "999");
-        if (cursor != null) {
-            uriBuilder.addParameter("cursor", cursor);
+    /**
+     * Adds a channel announced by a {@code channel_unarchive} event back to the cached channels of its workspace. The
+     * event only has the channel's ID, so its name is looked up.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void channelUnarchived(String teamId, String channelId) {
+        for (String token : CHANNEL_METADATA_CACHE.asMap().keySet()) {
+            if (teamId.equals(getTeamId(token))) {
+                String channelName = fetchChannelName(token, channelId);
+                if (channelName != null) {
+                    update(token, channels -> channels.with(channelName, channelId));
+                    UNKNOWN_CHANNELS.found(token, channelName);
+                }
+            }
         }
-        Request requestBuilder = Request.get(uriBuilder.build())
-                .addHeader("Authorization", "Bearer " + token);
-        JSONObject result = requestBuilder.execute(client).handleResponse(getStandardResponseHandler());
+    }
 
-        if (!result.getBoolean("ok")) {
-            logger.warning("Couldn't convert channel name to ID in Slack: " + result);
-            return channels;
+    /**
+     * Adds a channel announced by a {@code channel_created} event to the cached channels of its workspace.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void channelCreated(String teamId, String channelId, String channelName) {
+        for (String token : CHANNEL_METADATA_CACHE.asMap().keySet()) {
+            if (teamId.equals(getTeamId(token))) {
+                update(token, channels -> channels.with(channelName, channelId));
+                UNKNOWN_CHANNELS.found(token, channelName);
+            }
         }
+    }
 
-        JSONArray channelsArray = result.getJSONArray("channels");
-        for (int i = 0; i < channelsArray.length(); i++) {
-            JSONObject channel = channelsArray.getJSONObject(i);
+    /**
+     * Applies a {@code channel_rename} or {@code group_rename} event, the old name stops resolving right away.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void channelRenamed(String channelId, String channelName) {
+        // channel IDs are unique across workspaces, no need to know the team
+        CHANNEL_METADATA_CACHE.asMap().forEach((token, channels) -> {
+            if (channels.containsId(channelId)) {
+                update(token, index -> index.with(channelName, channelId));
+                UNKNOWN_CHANNELS.found(token, channelName);
+            }
+        });
+    }
 
-            String channelName = channel.getString("name");
-            String channelId = channel.getString("id");
+    /**
+     * Applies a {@code channel_archive}, {@code channel_deleted}, {@code group_archive} or {@code group_deleted} event.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void channelRemoved(String channelId) {
+        CHANNEL_METADATA_CACHE.asMap().forEach((token, channels) -> {
+            if (channels.containsId(channelId)) {
+                update(token, index -> index.without(channelId));
+            }
+        });
+    }
 
-            channels.put(channelName, channelId);
+    private static void update(String token, UnaryOperator<NameIdIndex> change) {
+        NameIdIndex updated = CHANNEL_METADATA_CACHE.asMap().computeIfPresent(token, (t, channels) -> change.apply(channels));
+        // a burst of events is saved once
+        if (updated != null && PENDING_SNAPSHOTS.add(token)) {
+            Timer.get().schedule(() -> saveSnapshot(token), SNAPSHOT_DELAY_SECONDS, TimeUnit.SECONDS);
         }
+    }
 
-        cursor = result.getJSONObject("response_metadata").getString("next_cursor");
-        if (cursor != null && !cursor.isEmpty()) {
-            return convertPublicChannelNameToId(client, token, channels, cursor);
+    private static void saveSnapshot(String token) {
+        // events arriving from now on schedule the next save
+        PENDING_SNAPSHOTS.remove(token);
+        NameIdIndex channels = CHANNEL_METADATA_CACHE.getIfPresent(token);
+        if (channels != null) {
+            snapshots().save(token, channels.toMap());
         }
-
-        return channels;
     }
 
-    private static Map<String, String> convertPrivateChannelNameToId(CloseableHttpClient client, String token, Map<String, String> channels, String cursor) throws IOException, URISyntaxException {
-        URIBuilder uriBuilder = new URIBuilder("https://slack.com/api/conversations.list")
-                .addParameter("exclude_archived", "true")
-                .addParameter("types", "private_channel")
-                .addParameter("limit", "999");
-        if (cursor != null) {
-            uriBuilder.addParameter("cursor", cursor);
+    /**
+     * @return the team ID of the workspace the token belongs to, null if it can't be determined right now
+     */
+    private static String getTeamId(String token) {
+        String teamId = TEAMS.get(token);
+        if (teamId != null || UNKNOWN_TEAMS.getIfPresent(token) != null) {
+            return teamId;
+        }
+        // not inside computeIfAbsent, which would block other workspaces' lookups while waiting for Slack
+        teamId = fetchTeamId(token);
+        if (teamId != null) {
+            TEAMS.put(token, teamId);
+        } else {
+            UNKNOWN_TEAMS.put(token, Boolean.TRUE);
         }
-        Request requestBuilder = Request.get(uriBuilder.build())
-                .addHeader("Authorization", "Bearer " + token);
-        JSONObject result = requestBuilder.execute(client).handleResponse(getStandardResponseHandler());
+        return teamId;
+    }
 
-        if (!result.getBoolean("ok")) {
-            logger.warning("Couldn't convert channel name to ID in Slack: " + result);
-            return channels;
+    private static String fetchTeamId(String token) {
+        try {
+            acquirePermit(token, AUTH_TEST_METHOD);
+            JSONObject result = Request.get("https://slack.com/api/" + AUTH_TEST_METHOD)
+                    .addHeader("Authorization", "Bearer " + token)
+                    .execute(HttpClientRegistry.getHttpClient(Jenkins.get().getProxy()))
+                    .handleResponse(getStandardResponseHandler());
+            if (result == null || !result.optBoolean("ok")) {
+                logger.warning("Couldn't determine the team of the Slack workspace: " + result);
+                return null;
+            }
+            return result.getString("team_id");
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Couldn't determine the team of the Slack workspace", e);
+            return null;
         }
+    }
 
-        JSONArray channelsArray = result.getJSONArray("channels");
-        for (int i = 0; i < channelsArray.length(); i++) {
-            JSONObject channel = channelsArray.getJSONObject(i);
+    /**
+     * @return the name of the channel, null if it can't be determined right now
+     */
+    private static String fetchChannelName(String token, String channelId) {
+        try {
+            acquirePermit(token, CONVERSATIONS_INFO_METHOD);
+            JSONObject result = Request.get(new URIBuilder("https://slack.com/api/" + CONVERSATIONS_INFO_METHOD)
+                            .addParameter("channel", channelId)
+                            .build())
+                    .addHeader("Authorization", "Bearer " + token)
+                    .execute(HttpClientRegistry.getHttpClient(Jenkins.get().getProxy()))
+                    .handleResponse(getStandardResponseHandler());
+            if (result == null || !result.optBoolean("ok")) {
+                logger.warning("Couldn't look up the unarchived Slack channel " + channelId + ": " + result);
+                return null;
+            }
+            return result.getJSONObject("channel").getString("name");
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            logger.log(Level.WARNING, "Couldn't look up the unarchived Slack channel " + channelId, e);
+            return null;
+        }
+    }
 
-            String channelName = channel.getString("name");
-            String channelId = channel.getString("id");
+    private static NameIdSnapshots snapshots() {
+        return new NameIdSnapshots(new File(Jenkins.get().getRootDir(), SNAPSHOT_DIRECTORY), SNAPSHOT_HEADER);
+    }
 
-            channels.put(channelName, channelId);
+    /**
+     * Joins the refresh of the channel list in flight for the workspace or starts one, loading it if not cached yet.
+     */
+    private static NameIdIndex awaitRefresh(String botUserToken, String channelName)
+            throws InterruptedException, AbortException {
+        CompletableFuture<NameIdIndex> refresh = REFRESHES.run(botUserToken, CHANNEL_METADATA_CACHE::refresh);
+        try {
+            return refresh.get(REFRESH_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AbortException("Timed out after " + REFRESH_TIMEOUT.toSeconds() + "s waiting for the channel list " +
+                    "of the Slack workspace, channel not found: " + channelName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw new AbortException("Failed uploading file to slack, channel not found: " + channelName + ", error: " + cause.getMessage());
         }
+    }
 
-        cursor = result.getJSONObject("response_metadata").getString("next_cursor");
-        if (cursor != null && !cursor.isEmpty()) {
-            return convertPrivateChannelNameToId(client, token, channels, cursor);
+    private static String cleanChannelName(String channelName) {
+        String[] splitForThread = channelName.split(":", 2);
+        String channel = channelName;
+        if (splitForThread.length == 2) {
+            channel = splitForThread[0];
+        }
+        if (channel.startsWith("#")) {
+            return channel.substring(1);
         }
+        return channel;
+    }
 
+
+    /**
+     * Fetches public and private channels concurrently, each page is added to the map as it arrives.
+     */
+    private static Map<String, String> convertChannelNameToId(CloseableHttpClient client, String token) throws IOException, URISyntaxException {
+        long start = System.nanoTime();
+        Map<String, String> channels = new ConcurrentHashMap<>();
+        CompletableFuture<Integer> privatePages = CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchChannels(client, token, "private_channel", channels);
+            } catch (IOException | URISyntaxException e) {
+                throw new CompletionException(e);
+            }
+        }, Computer.threadPoolForRemoting);
+        int pages = fetchChannels(client, token, "public_channel", channels);
+        try {
+            pages += privatePages.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            }
+            throw e;
+        }
+        logger.info(String.format("Fetched %d Slack channels in %d pages in %dms", channels.size(), pages,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
         return channels;
     }
 
+    /**
+     * Pages through all channels of one type.
+     *
+     * @param type conversation type, e.g. {@code public_channel}
+     * @return number of pages fetched
+     * @throws IOException if Slack refuses a page, the channels fetched so far are incomplete
+     */
+    private static int fetchChannels(CloseableHttpClient client, String token, String type, Map<String, String> channels) throws IOException, URISyntaxException {
+        int pages = 0;
+        String cursor = null;
+        do {
+            URIBuilder uriBuilder = new URIBuilder("https://slack.com/api/" + CONVERSATIONS_LIST_METHOD)
+                    .addParameter("exclude_archived", "true")
+                    .addParameter("types", type)
+                    .addParameter("limit", "999");
+            if (cursor != null) {
+                uriBuilder.addParameter("cursor", cursor);
+            }
+            Request requestBuilder = Request.get(uriBuilder.build())
+                    .addHeader("Authorization", "Bearer " + token);
+            acquirePermit(token, CONVERSATIONS_LIST_METHOD);
+            JSONObject result = requestBuilder.execute(client).handleResponse(getStandardResponseHandler());
+            pages++;
+
+            if (!result.getBoolean("ok")) {
+                // a partial list would drop channels from the cache and its snapshot, so keep the previous one
+                throw new IOException("Couldn't list the " + type + " channels of the Slack workspace: " + result);
+            }
+
+            JSONArray channelsArray = result.getJSONArray("channels");
+            for (int i = 0; i < channelsArray.length(); i++) {
+                JSONObject channel = channelsArray.getJSONObject(i);
+
+                String channelName = channel.getString("name");
+                String channelId = channel.getString("id");
+
+                channels.put(channelName, channelId);
+            }
+
+            cursor = result.getJSONObject("response_metadata").getString("next_cursor");
+        } while (cursor != null && !cursor.isEmpty());
+
+        return pages;
+    }
+
+    private static void acquirePermit(String token, String method) throws InterruptedIOException {
+        try {
+            SlackRateLimiter.get().acquire(token, method);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the Slack rate limit");
+        }
+    }
+
     private static HttpClientResponseHandler<JSONObject> getStandardResponseHandler() {
         return response -> {
             int status = response.getCode();
@@ -222,5 +453,9 @@ public class SlackChannelIdCache {
 
     public static void clearCache() {
         CHANNEL_METADATA_CACHE.invalidateAll();
+        UNKNOWN_CHANNELS.clear();
+        TEAMS.clear();
+        UNKNOWN_TEAMS.invalidateAll();
+        snapshots().clear();
     }
 }
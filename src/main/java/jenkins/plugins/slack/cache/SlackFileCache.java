@@ -0,0 +1,169 @@
+package jenkins.plugins.slack.cache;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Files each job uploaded to each workspace by the SHA-256 hash of their content, so uploading the same content again
+ * can link the file that's already in Slack instead.
+ *
+ * Kept on the controller and saved to disk like the channel cache, the agents only ask it about single files. The
+ * hashes are reported by the agent, so the files of a job are only offered to later builds of the same job.
+ * The files that weren't linked for the longest time are forgotten once a job has {@link #MAX_FILES}.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackFileCache {
+
+    static final int MAX_FILES = 10_000;
+
+    private static final String SNAPSHOT_DIRECTORY = "slack-file-cache";
+    private static final String SNAPSHOT_HEADER = "slack-files 1";
+    private static final long SNAPSHOT_DELAY_SECONDS = 30;
+
+    private static final SlackFileCache INSTANCE = new SlackFileCache(
+            () -> new NameIdSnapshots(new File(Jenkins.get().getRootDir(), SNAPSHOT_DIRECTORY), SNAPSHOT_HEADER), MAX_FILES,
+            save -> Timer.get().schedule(save, SNAPSHOT_DELAY_SECONDS, TimeUnit.SECONDS));
+
+    private final Supplier<NameIdSnapshots> snapshots;
+    private final int maxFiles;
+    // runs the delayed saves
+    private final Executor saver;
+    private final Map<String, Workspace> workspaces = new ConcurrentHashMap<>();
+    // workspaces whose files changed since they were saved
+    private final Set<String> pendingSnapshots = ConcurrentHashMap.newKeySet();
+
+    SlackFileCache(Supplier<NameIdSnapshots> snapshots, int maxFiles, Executor saver) {
+        this.snapshots = snapshots;
+        this.maxFiles = maxFiles;
+        this.saver = saver;
+    }
+
+    public static SlackFileCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the file with the content, null if the job didn't upload it to the workspace
+     */
+    public UploadedFile get(String token, String job, String sha256) {
+        Workspace workspace = getWorkspace(key(token, job));
+        synchronized (workspace) {
+            return workspace.files.get(sha256);
+        }
+    }
+
+    /**
+     * Lets callers skip hashing a file when nothing of the same size was uploaded.
+     */
+    public boolean containsLength(String token, String job, long length) {
+        Workspace workspace = getWorkspace(key(token, job));
+        synchronized (workspace) {
+            return workspace.lengths.containsKey(length);
+        }
+    }
+
+    /**
+     * Remembers the files of one upload, a burst of uploads is saved once.
+     *
+     * @param files the files by the SHA-256 hash of their content
+     */
+    public void putAll(String token, String job, Map<String, UploadedFile> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        String key = key(token, job);
+        Workspace workspace = getWorkspace(key);
+        synchronized (workspace) {
+            files.forEach(workspace::put);
+        }
+        if (pendingSnapshots.add(key)) {
+            saver.execute(() -> saveSnapshot(key));
+        }
+    }
+
+    private void saveSnapshot(String key) {
+        // uploads from now on schedule the next save
+        pendingSnapshots.remove(key);
+        Workspace workspace = workspaces.get(key);
+        if (workspace == null) {
+            return;
+        }
+        Map<String, String> lines = new LinkedHashMap<>();
+        synchronized (workspace) {
+            workspace.files.forEach((hash, uploaded) -> lines.put(hash, uploaded.toLine()));
+        }
+        snapshots.get().save(key, lines);
+    }
+
+    public void clear() {
+        workspaces.clear();
+        snapshots.get().clear();
+    }
+
+    // the snapshots are named after the hash of the key, so the token doesn't end up on disk
+    private static String key(String token, String job) {
+        return token + '\n' + job;
+    }
+
+    private Workspace getWorkspace(String key) {
+        return workspaces.computeIfAbsent(key, this::load);
+    }
+
+    private Workspace load(String key) {
+        Workspace workspace = new Workspace(maxFiles);
+        Map<String, String> lines = snapshots.get().load(key);
+        if (lines != null) {
+            lines.forEach((hash, line) -> {
+                UploadedFile file = UploadedFile.fromLine(line);
+                if (file != null) {
+                    workspace.put(hash, file);
+                }
+            });
+        }
+        return workspace;
+    }
+
+    /**
+     * The files one job uploaded to one workspace, least recently linked first, and how many of them have each size.
+     */
+    private static final class Workspace {
+        private final Map<Long, Integer> lengths = new HashMap<>();
+        private final Map<String, UploadedFile> files;
+
+        Workspace(int maxFiles) {
+            files = new LinkedHashMap<String, UploadedFile>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, UploadedFile> eldest) {
+                    if (size() <= maxFiles) {
+                        return false;
+                    }
+                    forget(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        void put(String sha256, UploadedFile file) {
+            lengths.merge(file.getLength(), 1, Integer::sum);
+            UploadedFile previous = files.put(sha256, file);
+            if (previous != null) {
+                forget(previous);
+            }
+        }
+
+        private void forget(UploadedFile file) {
+            lengths.computeIfPresent(file.getLength(), (length, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
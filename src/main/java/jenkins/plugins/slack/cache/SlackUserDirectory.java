@@ -0,0 +1,220 @@
+package jenkins.plugins.slack.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import hudson.model.Computer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.HttpClientRegistry;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.net.URIBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Email address to user ID index of each workspace, built by paging through {@code users.list}, so committers can be
+ * resolved from memory instead of with one {@code users.lookupByEmail} call each.
+ *
+ * The index is saved to disk like the channel cache and refreshed in the background once it is older than
+ * {@link #REFRESH_INTERVAL}. Lookups never wait for a refresh, addresses that aren't in the index return null so the
+ * caller can fall back to looking them up one by one.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackUserDirectory {
+
+    private static final Logger logger = Logger.getLogger(SlackUserDirectory.class.getName());
+
+    static final Duration REFRESH_INTERVAL = Duration.ofHours(6);
+    // don't hammer users.list while it keeps failing, e.g. without the users:read.email scope
+    static final Duration RETRY_INTERVAL = Duration.ofMinutes(15);
+
+    private static final String SNAPSHOT_DIRECTORY = "slack-user-directory";
+    private static final String SNAPSHOT_HEADER = "slack-users 1";
+    private static final String USERS_LIST_METHOD = "users.list";
+    // users.list returns fewer users than asked for above 200
+    private static final String PAGE_SIZE = "200";
+
+    private static final SlackUserDirectory INSTANCE = new SlackUserDirectory(Ticker.systemTicker(),
+            SlackUserDirectory::fetchUsers, command -> Computer.threadPoolForRemoting.execute(command),
+            () -> new NameIdSnapshots(new File(Jenkins.get().getRootDir(), SNAPSHOT_DIRECTORY), SNAPSHOT_HEADER));
+
+    private final Ticker ticker;
+    private final Fetcher fetcher;
+    private final Executor executor;
+    private final Supplier<NameIdSnapshots> snapshots;
+    private final Map<String, Directory> directories = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastAttempt = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Directory> refreshes = new SingleFlight<>();
+
+    SlackUserDirectory(Ticker ticker, Fetcher fetcher, Executor executor, Supplier<NameIdSnapshots> snapshots) {
+        this.ticker = ticker;
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.snapshots = snapshots;
+    }
+
+    public static SlackUserDirectory get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the ID of the user with the email address, null if it's not known (yet)
+     */
+    public String getUserId(String token, String emailAddress) {
+        Directory directory = directories.computeIfAbsent(token, this::loadSnapshot);
+        long now = ticker.read();
+        if (directory == null || now - directory.fetchedAt >= REFRESH_INTERVAL.toNanos()) {
+            tryRefresh(token, now);
+        }
+        return directory != null ? directory.users.get(emailAddress.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    public void clear() {
+        directories.clear();
+        lastAttempt.clear();
+        snapshots.get().clear();
+    }
+
+    private Directory loadSnapshot(String token) {
+        Map<String, String> users = snapshots.get().load(token);
+        // saved before the restart, so refresh it right away
+        return users != null ? new Directory(NameIdIndex.of(users), ticker.read() - REFRESH_INTERVAL.toNanos()) : null;
+    }
+
+    /**
+     * @return the refresh that was started, null if one is in flight or the last attempt was too recent
+     */
+    CompletableFuture<Directory> tryRefresh(String token, long now) {
+        Long last = lastAttempt.get(token);
+        if ((last != null && now - last < RETRY_INTERVAL.toNanos()) || refreshes.isInFlight(token)) {
+            return null;
+        }
+        lastAttempt.put(token, now);
+        return refreshes.run(token, t -> CompletableFuture.supplyAsync(() -> refresh(t), executor));
+    }
+
+    private Directory refresh(String token) {
+        long start = ticker.read();
+        Map<String, String> users;
+        try {
+            users = fetcher.fetch(token);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to fetch the Slack user directory, looking up users one by one", e);
+            throw new CompletionException(e);
+        }
+        Directory directory = new Directory(NameIdIndex.of(users), ticker.read());
+        directories.put(token, directory);
+        snapshots.get().save(token, users);
+        logger.info(String.format("Indexed the email addresses of %d Slack users in %dms", users.size(),
+                TimeUnit.NANOSECONDS.toMillis(ticker.read() - start)));
+        return directory;
+    }
+
+    private static Map<String, String> fetchUsers(String token) throws IOException {
+        CloseableHttpClient client = HttpClientRegistry.getHttpClient(Jenkins.get().getProxy());
+        SlackRateLimiter rateLimiter = SlackRateLimiter.get();
+        Map<String, String> users = new HashMap<>();
+        String cursor = null;
+        boolean morePages = true;
+        int attempts = 0;
+        while (morePages) {
+            HttpGet request;
+            try {
+                URIBuilder uriBuilder = new URIBuilder("https://slack.com/api/" + USERS_LIST_METHOD)
+                        .addParameter("limit", PAGE_SIZE);
+                if (cursor != null) {
+                    uriBuilder.addParameter("cursor", cursor);
+                }
+                request = new HttpGet(uriBuilder.build());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            try {
+                rateLimiter.acquire(token, USERS_LIST_METHOD);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Slack rate limit");
+            }
+            try (CloseableHttpResponse response = client.execute(request)) {
+                if (SlackRateLimiter.isThrottled(response) && ++attempts < SlackRateLimiter.MAX_ATTEMPTS) {
+                    rateLimiter.throttled(token, USERS_LIST_METHOD, SlackRateLimiter.getRetryAfterSeconds(response));
+                    continue;
+                }
+                if (response.getCode() != HttpStatus.SC_OK) {
+                    throw new IOException("Failed to list Slack users, status: " + response.getCode());
+                }
+                JSONObject page = new JSONObject(EntityUtils.toString(response.getEntity()));
+                cursor = readUsers(page, users);
+                morePages = !cursor.isEmpty();
+                attempts = 0;
+            } catch (ParseException e) {
+                throw new IOException(e);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Adds the users of a {@code users.list} page to the map, skipping deactivated users and bots.
+     *
+     * @return the cursor of the next page, empty if this was the last one
+     */
+    static String readUsers(JSONObject page, Map<String, String> users) throws IOException {
+        if (!page.optBoolean("ok")) {
+            throw new IOException("Failed to list Slack users: " + page.optString("error"));
+        }
+        JSONArray members = page.getJSONArray("members");
+        for (int i = 0; i < members.length(); i++) {
+            JSONObject member = members.getJSONObject(i);
+            if (member.optBoolean("deleted") || member.optBoolean("is_bot")) {
+                continue;
+            }
+            JSONObject profile = member.optJSONObject("profile");
+            // only present with the users:read.email scope
+            String email = profile != null ? profile.optString("email") : "";
+            if (!email.isEmpty()) {
+                users.put(email.toLowerCase(Locale.ROOT), member.getString("id"));
+            }
+        }
+        JSONObject metadata = page.optJSONObject("response_metadata");
+        return metadata != null ? metadata.optString("next_cursor") : "";
+    }
+
+    interface Fetcher {
+        Map<String, String> fetch(String token) throws IOException;
+    }
+
+    static final class Directory {
+        final NameIdIndex users;
+        final long fetchedAt;
+
+        Directory(NameIdIndex users, long fetchedAt) {
+            this.users = users;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package jenkins.plugins.slack.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.plugins.slack.TokenDigest;
+
+/**
+ * Remembers channel names that couldn't be resolved and when the channel list of a workspace was last fetched,
+ * so a mistyped channel name doesn't make every build page through all channels of the workspace again.
+ */
+final class UnknownChannelCache {
+
+    static final Duration UNKNOWN_CHANNEL_TTL = Duration.ofMinutes(10);
+    static final Duration MIN_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    private final Ticker ticker;
+    private final Cache<String, Boolean> unknownChannels;
+    private final Map<String, Long> lastRefresh = new ConcurrentHashMap<>();
+
+    UnknownChannelCache(Ticker ticker) {
+        this.ticker = ticker;
+        this.unknownChannels = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(UNKNOWN_CHANNEL_TTL)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * @return whether the channel was recently looked up and not found
+     */
+    boolean isUnknown(String token, String channelName) {
+        return unknownChannels.getIfPresent(key(token) + ' ' + channelName) != null;
+    }
+
+    void unknown(String token, String channelName) {
+        unknownChannels.put(key(token) + ' ' + channelName, Boolean.TRUE);
+    }
+
+    /**
+     * Forgets that the channel wasn't found, e.g. because it was just created.
+     */
+    void found(String token, String channelName) {
+        unknownChannels.invalidate(key(token) + ' ' + channelName);
+    }
+
+    /**
+     * Records that the channel list of the workspace was fetched, names not found before may exist now.
+     */
+    void refreshed(String token) {
+        String key = key(token);
+        lastRefresh.put(key, ticker.read());
+        unknownChannels.asMap().keySet().removeIf(channel -> channel.startsWith(key + ' '));
+    }
+
+    /**
+     * @return whether the channel list of the workspace may be fetched again, if so the refresh is recorded
+     */
+    boolean tryRefresh(String token) {
+        long now = ticker.read();
+        boolean[] allowed = new boolean[1];
+        lastRefresh.compute(key(token), (k, last) -> {
+            allowed[0] = last == null || now - last >= MIN_REFRESH_INTERVAL.toNanos();
+            return allowed[0] ? Long.valueOf(now) : last;
+        });
+        return allowed[0];
+    }
+
+    void clear() {
+        unknownChannels.invalidateAll();
+        lastRefresh.clear();
+    }
+
+    private static String key(String token) {
+        return TokenDigest.of(token);
+    }
+}
@@ -0,0 +1,55 @@
+package jenkins.plugins.slack.cache;
+
+import java.io.Serializable;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A file that was uploaded to Slack before, found by the SHA-256 hash of its content.
+ */
+@Restricted(NoExternalUse.class)
+public final class UploadedFile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fileId;
+    private final long length;
+    private final String permalink;
+
+    public UploadedFile(String fileId, long length, String permalink) {
+        this.fileId = fileId;
+        this.length = length;
+        this.permalink = permalink;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public String getPermalink() {
+        return permalink;
+    }
+
+    String toLine() {
+        return fileId + ' ' + length + ' ' + permalink;
+    }
+
+    /**
+     * @return the file saved by {@link #toLine()}, null if the line can't be read
+     */
+    static UploadedFile fromLine(String line) {
+        String[] parts = line.split(" ", 3);
+        if (parts.length < 3) {
+            return null;
+        }
+        try {
+            return new UploadedFile(parts[0], Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package jenkins.plugins.slack.events;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.UnprotectedRootAction;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.CredentialsObtainer;
+import jenkins.plugins.slack.SlackNotifier;
+import jenkins.plugins.slack.cache.SlackChannelIdCache;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Receives channel events from the Slack Events API and applies them to the {@link SlackChannelIdCache},
+ * so new, renamed and unarchived channels resolve without fetching the whole channel list again.
+ *
+ * Disabled unless a signing secret is configured, every request must be signed with it.
+ * Set the request URL of the Slack app's event subscriptions to {@code JENKINS_URL/slack-events/}.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class SlackEventsAction implements UnprotectedRootAction {
+
+    static final String URL_NAME = "slack-events";
+
+    private static final Logger logger = Logger.getLogger(SlackEventsAction.class.getName());
+
+    private static final String TIMESTAMP_HEADER = "X-Slack-Request-Timestamp";
+    private static final String SIGNATURE_HEADER = "X-Slack-Signature";
+    // channel events are small, anything bigger isn't for us
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    @POST
+    public HttpResponse doIndex(StaplerRequest2 req) throws IOException {
+        String signingSecret = getSigningSecret();
+        if (signingSecret == null) {
+            return HttpResponses.notFound();
+        }
+
+        byte[] body;
+        try (InputStream in = req.getInputStream()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            return HttpResponses.errorWithoutStack(413, "Request too large");
+        }
+
+        SlackRequestVerifier verifier = new SlackRequestVerifier(signingSecret);
+        if (!verifier.verify(req.getHeader(TIMESTAMP_HEADER), req.getHeader(SIGNATURE_HEADER), body,
+                System.currentTimeMillis() / 1000)) {
+            logger.warning("Rejected a Slack event with a missing, expired or invalid signature");
+            return HttpResponses.forbidden();
+        }
+
+        JSONObject payload;
+        try {
+            payload = new JSONObject(new String(body, StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            return HttpResponses.errorWithoutStack(400, "Invalid JSON");
+        }
+
+        switch (payload.optString("type")) {
+            case "url_verification":
+                return HttpResponses.plainText(payload.optString("challenge"));
+            case "event_callback":
+                JSONObject event = payload.optJSONObject("event");
+                if (event != null) {
+                    // Slack retries unless it gets an answer within 3 seconds, the team lookup may take longer
+                    String teamId = payload.optString("team_id", null);
+                    Computer.threadPoolForRemoting.submit(() -> apply(teamId, event));
+                }
+                return HttpResponses.ok();
+            default:
+                return HttpResponses.ok();
+        }
+    }
+
+    static void apply(String teamId, JSONObject event) {
+        String type = event.optString("type");
+        JSONObject channel = event.optJSONObject("channel");
+        switch (type) {
+            case "channel_created":
+                if (channel != null && teamId != null) {
+                    SlackChannelIdCache.channelCreated(teamId, channel.getString("id"), channel.getString("name"));
+                }
+                break;
+            case "channel_unarchive":
+            case "group_unarchive":
+                // unlike channel_created, only has the channel's ID
+                String unarchivedId = event.optString("channel", null);
+                if (unarchivedId != null && teamId != null) {
+                    SlackChannelIdCache.channelUnarchived(teamId, unarchivedId);
+                }
+                break;
+            case "channel_rename":
+            case "group_rename":
+                if (channel != null) {
+                    SlackChannelIdCache.channelRenamed(channel.getString("id"), channel.getString("name"));
+                }
+                break;
+            case "channel_archive":
+            case "channel_deleted":
+            case "group_archive":
+            case "group_deleted":
+                String channelId = event.optString("channel", null);
+                if (channelId != null) {
+                    SlackChannelIdCache.channelRemoved(channelId);
+                }
+                break;
+            default:
+                logger.fine("Ignoring Slack event " + type);
+                return;
+        }
+        logger.fine("Applied Slack event " + type + " to the channel cache");
+    }
+
+    private static String getSigningSecret() {
+        SlackNotifier.DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(SlackNotifier.DescriptorImpl.class);
+        String credentialId = Util.fixEmptyAndTrim(descriptor.getEventsSigningSecretCredentialId());
+        if (credentialId == null) {
+            return null;
+        }
+        StringCredentials credentials = CredentialsObtainer.lookupCredentials(credentialId);
+        if (credentials == null) {
+            logger.warning("The Slack signing secret credential " + credentialId + " could not be found");
+            return null;
+        }
+        return Util.fixEmpty(credentials.getSecret().getPlainText());
+    }
+}
@@ -0,0 +1,31 @@
+package jenkins.plugins.slack.events;
+
+import hudson.Extension;
+import hudson.security.csrf.CrumbExclusion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Slack can't send a crumb, its requests are authenticated by {@link SlackRequestVerifier} instead.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class SlackEventsCrumbExclusion extends CrumbExclusion {
+
+    @Override
+    public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        String pathInfo = req.getPathInfo();
+        if (pathInfo != null && (pathInfo.equals("/" + SlackEventsAction.URL_NAME) ||
+                pathInfo.equals("/" + SlackEventsAction.URL_NAME + "/"))) {
+            chain.doFilter(req, resp);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package jenkins.plugins.slack.events;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Checks that a request was sent by Slack, see
+ * <a href="https://api.slack.com/authentication/verifying-requests-from-slack">verifying requests from Slack</a>.
+ *
+ * The signature is an HMAC-SHA256 of the timestamp and the raw body keyed with the app's signing secret,
+ * requests older than a few minutes are rejected so a captured request can't be replayed.
+ */
+final class SlackRequestVerifier {
+
+    static final Duration MAX_AGE = Duration.ofMinutes(5);
+    private static final String VERSION = "v0";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final byte[] signingSecret;
+
+    SlackRequestVerifier(String signingSecret) {
+        this.signingSecret = signingSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param timestamp value of the {@code X-Slack-Request-Timestamp} header, in seconds
+     * @param signature value of the {@code X-Slack-Signature} header
+     * @param nowSeconds current time in seconds
+     */
+    boolean verify(String timestamp, String signature, byte[] body, long nowSeconds) {
+        if (timestamp == null || signature == null) {
+            return false;
+        }
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(timestamp.trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(nowSeconds - sentAt) > MAX_AGE.toSeconds()) {
+            return false;
+        }
+        byte[] expected = sign(timestamp.trim(), body).getBytes(StandardCharsets.US_ASCII);
+        // constant time, so the signature can't be guessed byte by byte
+        return MessageDigest.isEqual(expected, signature.trim().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    String sign(String timestamp, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(signingSecret, ALGORITHM));
+            mac.update((VERSION + ':' + timestamp + ':').getBytes(StandardCharsets.UTF_8));
+            byte[] digest = mac.doFinal(body);
+            StringBuilder hex = new StringBuilder(VERSION.length() + 1 + digest.length * 2).append(VERSION).append('=');
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
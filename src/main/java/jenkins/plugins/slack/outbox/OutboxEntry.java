@@ -0,0 +1,186 @@
+package jenkins.plugins.slack.outbox;
+
+import hudson.model.Run;
+import hudson.util.Secret;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.SlackNotifier;
+import jenkins.plugins.slack.SlackRequest;
+import jenkins.plugins.slack.StandardSlackService;
+import jenkins.plugins.slack.StandardSlackServiceBuilder;
+import jenkins.plugins.slack.user.SlackUserIdResolver;
+import net.sf.json.JSONArray;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A notification waiting in the {@link SlackOutbox}, it holds everything needed to send it again after a restart.
+ */
+@Restricted(NoExternalUse.class)
+public final class OutboxEntry {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final String id;
+    private final long created;
+
+    private final String baseUrl;
+    private final String teamDomain;
+    private final boolean botUser;
+    private String roomId;
+    private final boolean replyBroadcast;
+    private final String iconEmoji;
+    private final String username;
+    private final Secret token;
+    private final int maxConcurrentPosts;
+
+    private final String message;
+    private final String color;
+    private final String timestamp;
+    // kept as JSON text, net.sf.json types don't serialize well
+    private final String attachments;
+    private final String blocks;
+    // the run whose committers get a direct message as well, they're looked up on delivery
+    private String runId;
+    // not saved, after a restart the globally configured resolver is used
+    private transient SlackUserIdResolver userIdResolver;
+
+    private int attempts;
+    private long nextAttempt;
+    private String lastError;
+
+    public OutboxEntry(String baseUrl, String teamDomain, boolean botUser, String roomId, boolean replyBroadcast,
+                       String iconEmoji, String username, String token, int maxConcurrentPosts, SlackRequest request) {
+        this(baseUrl, teamDomain, botUser, roomId, replyBroadcast, iconEmoji, username, token, maxConcurrentPosts,
+                request, null, null);
+    }
+
+    public OutboxEntry(String baseUrl, String teamDomain, boolean botUser, String roomId, boolean replyBroadcast,
+                       String iconEmoji, String username, String token, int maxConcurrentPosts, SlackRequest request,
+                       Run<?, ?> run, SlackUserIdResolver userIdResolver) {
+        this.created = System.currentTimeMillis();
+        // ids sort in the order entries were added, also within the same millisecond
+        this.id = String.format("%013d-%04d-%s", created, SEQUENCE.getAndIncrement() % 10_000, UUID.randomUUID());
+        this.baseUrl = baseUrl;
+        this.teamDomain = teamDomain;
+        this.botUser = botUser;
+        this.roomId = roomId;
+        this.replyBroadcast = replyBroadcast;
+        this.iconEmoji = iconEmoji;
+        this.username = username;
+        this.token = Secret.fromString(token);
+        this.maxConcurrentPosts = maxConcurrentPosts;
+        this.message = request.getMessage();
+        this.color = request.getColor();
+        this.timestamp = request.getTimestamp();
+        this.attachments = request.getAttachments() != null ? request.getAttachments().toString() : null;
+        this.blocks = request.getBlocks() != null ? request.getBlocks().toString() : null;
+        this.nextAttempt = created;
+        this.runId = run != null ? run.getExternalizableId() : null;
+        this.userIdResolver = userIdResolver;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * @return the channels the notification is posted to, a thread counts as its channel
+     */
+    List<String> getChannels() {
+        // webhooks are told apart by their URL, the same channel name in two workspaces is delivered in order as well
+        String workspace = botUser ? "" : baseUrl + ' ' + teamDomain + ' ';
+        return Arrays.stream(roomId.split(","))
+                .map(room -> workspace + room.split(":")[0])
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    SlackUserIdResolver getUserIdResolver() {
+        return userIdResolver;
+    }
+
+    void setUserIdResolver(SlackUserIdResolver userIdResolver) {
+        this.userIdResolver = userIdResolver;
+    }
+
+    StandardSlackService toService() {
+        StandardSlackServiceBuilder builder = StandardSlackService.builder()
+                .withBaseUrl(baseUrl)
+                .withTeamDomain(teamDomain)
+                .withBotUser(botUser)
+                .withRoomId(roomId)
+                .withReplyBroadcast(replyBroadcast)
+                .withIconEmoji(iconEmoji)
+                .withUsername(username)
+                .withPopulatedToken(Secret.toString(token))
+                .withMaxConcurrentPosts(maxConcurrentPosts);
+        Run<?, ?> run = runId != null ? Run.fromExternalizableId(runId) : null;
+        SlackUserIdResolver resolver = userIdResolver != null ? userIdResolver
+                : Jenkins.get().getDescriptorByType(SlackNotifier.DescriptorImpl.class).getSlackUserIdResolver();
+        if (run != null && resolver != null) {
+            builder.withRun(run).withNotifyCommitters(true).withSlackUserIdResolver(resolver);
+        }
+        return builder.build();
+    }
+
+    SlackRequest toRequest() {
+        return SlackRequest.builder()
+                .withMessage(message)
+                .withColor(color)
+                .withTimestamp(timestamp)
+                .withAttachments(attachments != null ? JSONArray.fromObject(attachments) : null)
+                .withBlocks(blocks != null ? JSONArray.fromObject(blocks) : null)
+                .build();
+    }
+
+    /**
+     * Records a failed delivery attempt.
+     *
+     * @param failedRooms rooms the message still has to be sent to, the others already received it
+     */
+    void failed(String error, List<String> failedRooms, long nextAttempt) {
+        this.attempts++;
+        this.lastError = error;
+        this.nextAttempt = nextAttempt;
+        if (!failedRooms.isEmpty()) {
+            this.roomId = String.join(",", failedRooms);
+            // committers that didn't get their message are among the failed rooms already
+            this.runId = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEntry{" +
+                "id='" + id + '\'' +
+                ", roomId='" + roomId + '\'' +
+                ", attempts=" + attempts +
+                ", lastError='" + lastError + '\'' +
+                '}';
+    }
+}
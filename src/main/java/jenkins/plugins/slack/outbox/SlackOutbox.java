@@ -0,0 +1,281 @@
+package jenkins.plugins.slack.outbox;
+
+import hudson.XmlFile;
+import hudson.model.Computer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.SlackResult;
+import jenkins.plugins.slack.user.SlackUserIdResolver;
+import org.apache.hc.core5.http.HttpStatus;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Durable queue of notifications under {@code JENKINS_HOME/slack-outbox}, one file per notification.
+ *
+ * Builds only pay for writing the file, {@link SlackOutboxWorker} delivers the notifications in the background and
+ * retries failed deliveries with exponential backoff. Notifications that can't be delivered are moved to the
+ * {@code failed} sub directory rather than dropped. Notifications for the same channel are delivered one at a time in
+ * the order they were added, so e.g. a build's "started" message can't arrive after its result.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackOutbox {
+
+    private static final Logger logger = Logger.getLogger(SlackOutbox.class.getName());
+
+    static final String DIRECTORY = "slack-outbox";
+    static final String FAILED_DIRECTORY = "failed";
+    private static final String EXTENSION = ".xml";
+    static final int MAX_ATTEMPTS = 12;
+    static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static SlackOutbox instance;
+
+    private final File directory;
+    private final Function<OutboxEntry, CompletableFuture<SlackResult>> sender;
+    // updates the files once a post completed, rather than the HTTP client's few I/O threads
+    private final Executor executor;
+    // the pending entries by ID, oldest first, so only due entries have to be read
+    private volatile ConcurrentNavigableMap<String, Pending> index;
+
+    public SlackOutbox(File directory) {
+        this(directory, entry -> entry.toService().publishAsync(entry.toRequest()), Computer.threadPoolForRemoting);
+    }
+
+    SlackOutbox(File directory, Function<OutboxEntry, CompletableFuture<SlackResult>> sender, Executor executor) {
+        this.directory = directory;
+        this.sender = sender;
+        this.executor = executor;
+    }
+
+    public static synchronized SlackOutbox get() {
+        File directory = new File(Jenkins.get().getRootDir(), DIRECTORY);
+        if (instance == null || !instance.directory.equals(directory)) {
+            instance = new SlackOutbox(directory);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a notification, once this returns it survives a restart.
+     */
+    public void append(OutboxEntry entry) throws IOException {
+        getFile(entry.getId()).write(entry);
+        getIndex().put(entry.getId(), new Pending(entry));
+    }
+
+    /**
+     * @return pending notifications, oldest first
+     */
+    public List<OutboxEntry> getEntries() {
+        List<OutboxEntry> entries = new ArrayList<>();
+        for (String id : getIndex().keySet()) {
+            OutboxEntry entry = read(id);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Sends all notifications that are due and waits for the outcome. Different channels are delivered to
+     * concurrently, the notifications of one channel one after the other. A notification waits while an earlier one
+     * for any of its channels is still pending.
+     */
+    void deliver(long now) {
+        // whether the channel is clear for the next notification, i.e. the previous ones have left the outbox
+        Map<String, CompletableFuture<Boolean>> channels = new HashMap<>();
+        Set<String> waiting = new HashSet<>();
+        List<CompletableFuture<Boolean>> deliveries = new ArrayList<>();
+        for (Map.Entry<String, Pending> pending : getIndex().entrySet()) {
+            List<String> entryChannels = pending.getValue().channels;
+            if (pending.getValue().nextAttempt > now || entryChannels.stream().anyMatch(waiting::contains)) {
+                waiting.addAll(entryChannels);
+                continue;
+            }
+            OutboxEntry entry = read(pending.getKey());
+            if (entry == null) {
+                continue;
+            }
+            entry.setUserIdResolver(pending.getValue().userIdResolver);
+            List<CompletableFuture<Boolean>> previous = entryChannels.stream()
+                    .map(channels::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            CompletableFuture<Boolean> delivery = CompletableFuture.allOf(previous.toArray(new CompletableFuture<?>[0]))
+                    .thenCompose(ignored -> previous.stream().allMatch(CompletableFuture::join)
+                            ? send(entry).thenApplyAsync(result -> delivered(entry, result, now), executor)
+                            : CompletableFuture.completedFuture(false));
+            entryChannels.forEach(channel -> channels.put(channel, delivery));
+            deliveries.add(delivery);
+        }
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private CompletableFuture<SlackResult> send(OutboxEntry entry) {
+        try {
+            return sender.apply(entry).exceptionally(e -> SlackResult.failure(e.toString()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(SlackResult.failure(e.toString()));
+        }
+    }
+
+    private ConcurrentNavigableMap<String, Pending> getIndex() {
+        ConcurrentNavigableMap<String, Pending> result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = loadIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // reads every entry once, e.g. those left over from before a restart
+    private ConcurrentNavigableMap<String, Pending> loadIndex() {
+        ConcurrentNavigableMap<String, Pending> loaded = new ConcurrentSkipListMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                OutboxEntry entry = read(file);
+                if (entry != null) {
+                    loaded.put(entry.getId(), new Pending(entry));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @return the pending entry, null if it's gone or can't be read
+     */
+    private OutboxEntry read(String id) {
+        OutboxEntry entry = read(getFile(id).getFile());
+        if (entry == null) {
+            getIndex().remove(id);
+        }
+        return entry;
+    }
+
+    private OutboxEntry read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return (OutboxEntry) new XmlFile(file).read();
+        } catch (IOException | ClassCastException e) {
+            logger.log(Level.WARNING, "Unreadable Slack outbox entry " + file, e);
+            moveToFailed(file);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the entry left the outbox, either delivered or given up on
+     */
+    private boolean delivered(OutboxEntry entry, SlackResult result, long now) {
+        XmlFile file = getFile(entry.getId());
+        try {
+            if (result.isOk()) {
+                logger.fine("Delivered Slack outbox entry " + entry.getId());
+                file.delete();
+                getIndex().remove(entry.getId());
+                return true;
+            }
+            List<String> failedRooms = result.getRoomResults().stream()
+                    .filter(roomResult -> !roomResult.isOk())
+                    .map(SlackResult::getRoom)
+                    .collect(Collectors.toList());
+            entry.failed(result.getError(), failedRooms, now + backoff(entry.getAttempts() + 1));
+            file.write(entry);
+            if (entry.getAttempts() >= MAX_ATTEMPTS || !isRetryable(result)) {
+                logger.warning("Giving up on Slack notification " + entry + ", it's kept in " + FAILED_DIRECTORY);
+                getIndex().remove(entry.getId());
+                moveToFailed(file.getFile());
+                return true;
+            }
+            getIndex().put(entry.getId(), new Pending(entry));
+            logger.info("Slack notification " + entry + " will be retried in "
+                    + TimeUnit.MILLISECONDS.toSeconds(entry.getNextAttempt() - now) + "s");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to update Slack outbox entry " + entry.getId(), e);
+        }
+        return false;
+    }
+
+    /**
+     * @param attempts failed attempts so far, at least 1
+     * @return delay before the next attempt
+     */
+    static long backoff(int attempts) {
+        int exponent = Math.min(attempts - 1, 20);
+        return Math.min(INITIAL_BACKOFF_MILLIS << exponent, MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Connection problems, server errors and rate limiting may go away, other errors such as an unknown channel or
+     * an invalid token won't.
+     */
+    static boolean isRetryable(SlackResult result) {
+        if (!result.getRoomResults().isEmpty()) {
+            return result.getRoomResults().stream()
+                    .filter(roomResult -> !roomResult.isOk())
+                    .anyMatch(SlackOutbox::isRetryable);
+        }
+        int statusCode = result.getStatusCode();
+        return statusCode == -1 || statusCode == HttpStatus.SC_TOO_MANY_REQUESTS || statusCode >= HttpStatus.SC_SERVER_ERROR;
+    }
+
+    /**
+     * What {@link #deliver} needs to know about an entry without reading it.
+     */
+    private static final class Pending {
+        private final long nextAttempt;
+        private final List<String> channels;
+        private final SlackUserIdResolver userIdResolver;
+
+        private Pending(OutboxEntry entry) {
+            this.nextAttempt = entry.getNextAttempt();
+            this.channels = entry.getChannels();
+            this.userIdResolver = entry.getUserIdResolver();
+        }
+    }
+
+    private XmlFile getFile(String id) {
+        return new XmlFile(new File(directory, id + EXTENSION));
+    }
+
+    private void moveToFailed(File file) {
+        File failed = new File(new File(directory, FAILED_DIRECTORY), file.getName());
+        try {
+            Files.createDirectories(failed.getParentFile().toPath());
+            Files.move(file.toPath(), failed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to move Slack outbox entry " + file + " aside", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package jenkins.plugins.slack.outbox;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.util.concurrent.TimeUnit;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Delivers notifications from the {@link SlackOutbox}, including those left over from before a restart.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class SlackOutboxWorker extends AsyncPeriodicWork {
+
+    public SlackOutboxWorker() {
+        super("Slack outbox");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.SECONDS.toMillis(15);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        SlackOutbox.get().deliver(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,139 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+
+/**
+ * Raw request body that sends a file straight from a {@link FileChannel}, without multipart framing.
+ *
+ * The length is known up front, so the file is never buffered. {@link FileChannel#transferTo} lets the OS copy the
+ * file to the socket itself where it can, and otherwise goes through a small fixed size buffer, so memory use doesn't
+ * grow with the file.
+ */
+final class FileChannelEntity extends AbstractHttpEntity {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final long length;
+    private final boolean digest;
+    private volatile String sha256;
+
+    FileChannelEntity(File file, ContentType contentType) {
+        this(file, contentType, false);
+    }
+
+    /**
+     * @param digest whether to hash the content while sending it, see {@link #getSha256()}
+     */
+    FileChannelEntity(File file, ContentType contentType, boolean digest) {
+        super(contentType, null);
+        this.file = file;
+        // the length announced to Slack, sent as is even if the file changes meanwhile
+        this.length = file.length();
+        this.digest = digest;
+    }
+
+    /**
+     * @return hex SHA-256 hash of the content that was sent, null if it wasn't hashed or not sent completely
+     */
+    String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return Files.newInputStream(file.toPath());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        sha256 = null;
+        MessageDigest messageDigest = digest ? newDigest() : null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // not closed, that would close the connection's stream
+            WritableByteChannel target = Channels.newChannel(
+                    messageDigest != null ? new DigestOutputStream(outStream, messageDigest) : outStream);
+            long position = 0;
+            while (position < length) {
+                long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0) {
+                    throw new IOException(file + " got shorter while uploading it");
+                }
+                position += transferred;
+            }
+        }
+        outStream.flush();
+        if (messageDigest != null) {
+            sha256 = toHex(messageDigest.digest());
+        }
+    }
+
+    /**
+     * Hashes the file without sending it, reading it in small chunks whatever its size.
+     *
+     * @return hex SHA-256 hash of the content
+     */
+    static String sha256(File file) throws IOException {
+        MessageDigest messageDigest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(messageDigest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // the channel is only open while writing
+    }
+}
@@ -0,0 +1,112 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.File;
+import java.io.Serializable;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Outcome of uploading a single file to Slack.
+ */
+@Restricted(NoExternalUse.class)
+public final class FileUploadResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fileName;
+    private final long length;
+    private final String fileId;
+    private final String sha256;
+    private final String permalink;
+    private final String error;
+    private final long durationMillis;
+    private final int attempts;
+
+    private FileUploadResult(File file, String fileId, String sha256, String permalink, String error, long durationMillis,
+                             int attempts) {
+        this.fileName = file.getName();
+        this.length = file.length();
+        this.fileId = fileId;
+        this.sha256 = sha256;
+        this.permalink = permalink;
+        this.error = error;
+        this.durationMillis = durationMillis;
+        this.attempts = attempts;
+    }
+
+    /**
+     * @param sha256 hash of the content, null if it wasn't hashed
+     */
+    static FileUploadResult uploaded(File file, String fileId, String sha256, long durationMillis, int attempts) {
+        return new FileUploadResult(file, fileId, sha256, null, null, durationMillis, attempts);
+    }
+
+    /**
+     * The same content was uploaded before, so the file in Slack is linked instead.
+     */
+    static FileUploadResult reused(File file, String fileId, String permalink, long durationMillis, int attempts) {
+        return new FileUploadResult(file, fileId, null, permalink, null, durationMillis, attempts);
+    }
+
+    static FileUploadResult failed(File file, String error, long durationMillis, int attempts) {
+        return new FileUploadResult(file, null, null, null, error, durationMillis, attempts);
+    }
+
+    public boolean isOk() {
+        return fileId != null;
+    }
+
+    public boolean isReused() {
+        return permalink != null;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the ID Slack assigned to the file, null if the upload failed
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public String getPermalink() {
+        return permalink;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return how often the file was tried, more than once if it was retried after a failure
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        if (isReused()) {
+            return String.format("Linked %s (%d bytes) uploaded before as %s", fileName, length, fileId);
+        }
+        String tries = attempts > 1 ? " and " + attempts + " attempts" : "";
+        if (isOk()) {
+            return String.format("Uploaded %s (%d bytes) in %dms%s", fileName, length, durationMillis, tries);
+        }
+        return String.format("Failed to upload %s after %dms%s: %s", fileName, durationMillis, tries, error);
+    }
+}
@@ -0,0 +1,109 @@
+package jenkins.plugins.slack.pipeline;
+
+import hudson.util.FileVisitor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * Finds the files matching an Ant pattern like {@link hudson.util.DirScanner.Glob} with the default excludes, but
+ * hands each file to the visitor as soon as it's found. {@code DirScanner.Glob} only starts visiting once the whole
+ * tree was scanned, which keeps uploads waiting for the scan of a large workspace.
+ */
+final class GlobWalker {
+
+    private static final Logger logger = Logger.getLogger(GlobWalker.class.getName());
+    private static final String ALL_CONTENTS = File.separator + "**";
+
+    private final List<String> includes;
+    private final List<String> excludes;
+
+    /**
+     * @param includes comma separated Ant patterns, everything if empty
+     */
+    GlobWalker(String includes) {
+        this.includes = patterns(includes == null || includes.trim().isEmpty() ? "**" : includes);
+        this.excludes = new ArrayList<>();
+        for (String exclude : DirectoryScanner.getDefaultExcludes()) {
+            this.excludes.addAll(patterns(exclude));
+        }
+    }
+
+    void walk(File directory, FileVisitor visitor) throws IOException {
+        Path base = directory.toPath();
+        // symbolic links are followed like DirScanner does
+        Files.walkFileTree(base, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String path = base.relativize(dir).toString();
+                return path.isEmpty() || couldContainMatches(path) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String path = base.relativize(file).toString();
+                if (matches(path)) {
+                    visitor.visit(file.toFile(), path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // like DirScanner, unreadable files and directories are left out
+                logger.log(Level.FINE, "Skipping " + file, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    boolean matches(String path) {
+        return includes.stream().anyMatch(pattern -> SelectorUtils.matchPath(pattern, path))
+                && excludes.stream().noneMatch(pattern -> SelectorUtils.matchPath(pattern, path));
+    }
+
+    /**
+     * Lets the walk skip directories no pattern can match anything in, e.g. {@code .git} or {@code src} for
+     * {@code target/*.jar}.
+     */
+    private boolean couldContainMatches(String path) {
+        for (String exclude : excludes) {
+            if (exclude.endsWith(ALL_CONTENTS)
+                    && SelectorUtils.matchPath(exclude.substring(0, exclude.length() - ALL_CONTENTS.length()), path)) {
+                return false;
+            }
+        }
+        return includes.stream().anyMatch(pattern -> SelectorUtils.matchPatternStart(pattern, path));
+    }
+
+    /**
+     * Splits a pattern list like Ant does and brings the patterns into the form {@link SelectorUtils} expects.
+     */
+    private static List<String> patterns(String patterns) {
+        List<String> result = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            // "dir/" is short for everything below dir
+            if (pattern.endsWith(File.separator)) {
+                pattern += "**";
+            }
+            result.add(pattern);
+        }
+        return result;
+    }
+}
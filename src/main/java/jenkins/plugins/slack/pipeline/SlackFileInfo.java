@@ -0,0 +1,102 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
+import org.apache.hc.client5.http.fluent.Request;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.net.URIBuilder;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Looks up a file uploaded to Slack with {@code files.info}, used both by agents linking a file uploaded before and
+ * by the controller checking the files an agent reports before remembering them.
+ *
+ * A link to a file only works for members of a channel the file is shared in, posting it doesn't share the file, so
+ * agents only link files that are shared in all target channels already.
+ */
+final class SlackFileInfo {
+
+    static final String METHOD = "files.info";
+
+    private SlackFileInfo() {
+    }
+
+    /**
+     * @param apiUrl base URL of the Slack Web API
+     * @param length the size the file is expected to have
+     * @param channelIds channels the file has to be shared in, null if it doesn't matter
+     * @return the permalink of the file, null if it doesn't exist (anymore), can't be read with the token, has
+     * another size or isn't shared in all the channels
+     */
+    static String getPermalink(String apiUrl, String token, String fileId, long length, List<String> channelIds,
+                               CloseableHttpClient client) throws IOException, URISyntaxException {
+        URI uri = new URIBuilder(apiUrl + METHOD)
+                .addParameter("file", fileId)
+                .build();
+        SlackRateLimiter rateLimiter = SlackRateLimiter.get();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire(token, METHOD);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Slack rate limit");
+            }
+            ClassicHttpResponse response = (ClassicHttpResponse) Request.get(uri)
+                    .addHeader("Authorization", "Bearer " + token)
+                    .execute(client)
+                    .returnResponse();
+            if (SlackRateLimiter.isThrottled(response) && attempt < SlackRateLimiter.MAX_ATTEMPTS) {
+                rateLimiter.throttled(token, METHOD, SlackRateLimiter.getRetryAfterSeconds(response));
+                continue;
+            }
+            HttpEntity entity = response.getEntity();
+            if (response.getCode() != HttpStatus.SC_OK || entity == null) {
+                return null;
+            }
+            try {
+                JSONObject result = new JSONObject(EntityUtils.toString(entity));
+                JSONObject file = result.optBoolean("ok") ? result.optJSONObject("file") : null;
+                if (file == null || file.optLong("size", -1) != length) {
+                    return null;
+                }
+                if (channelIds != null && !channelIds.stream().allMatch(channelId -> isSharedIn(file, channelId))) {
+                    return null;
+                }
+                String permalink = file.optString("permalink");
+                return permalink.isEmpty() ? null : permalink;
+            } catch (ParseException | JSONException e) {
+                throw new IOException("Unexpected " + METHOD + " response", e);
+            }
+        }
+    }
+
+    private static boolean isSharedIn(JSONObject file, String channelId) {
+        // public channels, private channels and direct messages are listed separately
+        for (String key : new String[] {"channels", "groups", "ims"}) {
+            JSONArray ids = file.optJSONArray(key);
+            for (int i = 0; ids != null && i < ids.length(); i++) {
+                if (channelId.equals(ids.optString(i))) {
+                    return true;
+                }
+            }
+        }
+        JSONObject shares = file.optJSONObject("shares");
+        if (shares == null) {
+            return false;
+        }
+        JSONObject publicShares = shares.optJSONObject("public");
+        JSONObject privateShares = shares.optJSONObject("private");
+        return publicShares != null && publicShares.has(channelId) || privateShares != null && privateShares.has(channelId);
+    }
+}
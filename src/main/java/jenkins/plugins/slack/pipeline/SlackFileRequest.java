@@ -13,8 +13,25 @@ public class SlackFileRequest {
 
     private final String initialComment;
     private final FilePath filePath;
+    private final int maxConcurrentUploads;
+    private final int maxFiles;
+    private final int maxTotalSizeMb;
 
     public SlackFileRequest(FilePath filePath, String token, String channelId, String initialComment, String fileToUploadPath, String threadTs) {
+        this(filePath, token, channelId, initialComment, fileToUploadPath, threadTs, SlackUploadFileRunner.DEFAULT_MAX_CONCURRENT_UPLOADS);
+    }
+
+    public SlackFileRequest(FilePath filePath, String token, String channelId, String initialComment, String fileToUploadPath, String threadTs,
+                            int maxConcurrentUploads) {
+        this(filePath, token, channelId, initialComment, fileToUploadPath, threadTs, maxConcurrentUploads,
+                SlackUploadFileRunner.DEFAULT_MAX_FILES, SlackUploadFileRunner.DEFAULT_MAX_TOTAL_SIZE_MB);
+    }
+
+    public SlackFileRequest(FilePath filePath, String token, String channelId, String initialComment, String fileToUploadPath, String threadTs,
+                            int maxConcurrentUploads, int maxFiles, int maxTotalSizeMb) {
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        this.maxFiles = maxFiles;
+        this.maxTotalSizeMb = maxTotalSizeMb;
         this.token = token;
         this.channelId = channelId;
         this.initialComment = initialComment;
@@ -27,6 +44,10 @@ public class SlackFileRequest {
         return token;
     }
 
+    /**
+     * @return the ID of the channel to share the files with, or a comma separated list of IDs to share them with
+     *         several channels after uploading them once
+     */
     public String getChannelId() {
         return channelId;
     }
@@ -46,4 +67,16 @@ public class SlackFileRequest {
     public String getThreadTs() {
         return threadTs;
     }
+
+    public int getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    public int getMaxTotalSizeMb() {
+        return maxTotalSizeMb;
+    }
 }
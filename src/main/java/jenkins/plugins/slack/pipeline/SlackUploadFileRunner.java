@@ -3,26 +3,42 @@ package jenkins.plugins.slack.pipeline;
 import hudson.FilePath;
 import hudson.ProxyConfiguration;
 import hudson.model.TaskListener;
-import hudson.util.DirScanner;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FileVisitor;
+import hudson.util.NamingThreadFactory;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import jenkins.plugins.slack.HttpClient;
+import java.util.stream.Collectors;
+import jenkins.plugins.slack.HttpClientRegistry;
+import jenkins.plugins.slack.HttpClientSettings;
+import jenkins.plugins.slack.cache.UploadedFile;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
 import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.SystemProperties;
 import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.fluent.Request;
-import org.apache.hc.client5.http.fluent.Response;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
@@ -32,10 +48,26 @@ import org.apache.hc.core5.net.URIBuilder;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-public class SlackUploadFileRunner extends MasterToSlaveCallable<Boolean, Throwable> implements Serializable {
+public class SlackUploadFileRunner extends MasterToSlaveCallable<SlackUploadResult, Throwable> implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final String GET_UPLOAD_URL_API = "https://slack.com/api/files.getUploadURLExternal";
+    public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 4;
+    public static final int DEFAULT_MAX_FILES = 100;
+    public static final int DEFAULT_MAX_TOTAL_SIZE_MB = 1024;
+    /**
+     * Uploads files as multipart form data like before, instead of streaming them as the raw request body.
+     */
+    private static final boolean MULTIPART_UPLOAD = SystemProperties.getBoolean(SlackUploadFileRunner.class.getName() + ".multipartUpload");
+    /**
+     * Each file is tried this often, with a growing pause between attempts.
+     */
+    static final int MAX_FILE_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    static final String API_URL = "https://slack.com/api/";
+    private static final String GET_UPLOAD_URL_METHOD = "files.getUploadURLExternal";
+    private static final String COMPLETE_UPLOAD_METHOD = "files.completeUploadExternal";
+    private static final String POST_MESSAGE_METHOD = "chat.postMessage";
     private static final Logger logger = Logger.getLogger(SlackUploadFileRunner.class.getName());
     private static final String UPLOAD_FAILED_TEMPLATE = "Slack upload may have failed. Response: ";
 
@@ -49,81 +81,356 @@ public class SlackUploadFileRunner extends MasterToSlaveCallable<Boolean, Throwa
     private final TaskListener listener;
     private final String initialComment;
     private final ProxyConfiguration proxy;
+    // captured on the controller, the runner is executed on an agent
+    private final HttpClientSettings settings = HttpClientSettings.current();
     private final String threadTs;
+    private final int maxConcurrentUploads;
+    private final int maxFiles;
+    private final long maxTotalBytes;
+    // read on the controller, where the property is set
+    private final boolean multipartUpload = MULTIPART_UPLOAD;
+    // exported from the controller, null when files are always uploaded. Read only, the controller checks the files
+    // this runner reports in its result before remembering them
+    private final UploadedFileLookup uploadedFiles;
+    private final String apiUrl;
 
     public SlackUploadFileRunner(TaskListener listener, ProxyConfiguration proxy, SlackFileRequest slackFileRequest) {
+        this(listener, proxy, slackFileRequest, null);
+    }
+
+    /**
+     * @param uploadedFiles files uploaded before, content found there is linked instead of uploaded again
+     */
+    public SlackUploadFileRunner(TaskListener listener, ProxyConfiguration proxy, SlackFileRequest slackFileRequest,
+                                 UploadedFileLookup uploadedFiles) {
+        this(listener, proxy, slackFileRequest, uploadedFiles, API_URL);
+    }
+
+    /**
+     * @param apiUrl base URL of the Slack Web API, e.g. a local stub in tests
+     */
+    SlackUploadFileRunner(TaskListener listener, ProxyConfiguration proxy, SlackFileRequest slackFileRequest,
+                          UploadedFileLookup uploadedFiles, String apiUrl) {
         this.listener = listener;
+        this.uploadedFiles = uploadedFiles;
         this.filePath = slackFileRequest.getFilePath();
         this.fileToUploadPath = slackFileRequest.getFileToUploadPath();
         this.channelId = slackFileRequest.getChannelId();
         this.threadTs = slackFileRequest.getThreadTs();
         this.initialComment = slackFileRequest.getInitialComment();
         this.token = slackFileRequest.getToken();
+        this.maxConcurrentUploads = slackFileRequest.getMaxConcurrentUploads();
+        this.maxFiles = slackFileRequest.getMaxFiles();
+        this.maxTotalBytes = (long) slackFileRequest.getMaxTotalSizeMb() << 20;
         this.proxy = proxy;
+        this.apiUrl = apiUrl;
     }
 
     @Override
-    public Boolean call() throws Throwable {
+    public SlackUploadResult call() throws Throwable {
         logger.fine(filePath + "");
         logger.fine(fileToUploadPath);
         listener.getLogger().printf("Using dirname=%s and includeMask=%s%n", filePath.getRemote(), fileToUploadPath);
 
-        final List<File> files = new ArrayList<>();
-        new DirScanner.Glob(fileToUploadPath, null).scan(new File(filePath.getRemote()), new FileVisitor() {
-            @Override
-            public void visit(File file, String relativePath) {
-                if (file.isFile()) {
-                    listener.getLogger().println("Adding file " + file.getAbsolutePath());
-                    files.add(file);
+        // failed uploads are tried again by withRetries with a new upload URL, not sent to the same one again by the
+        // client. Shares the registry's connection pool, closing this client leaves the pool open
+        try (CloseableHttpClient client = HttpClientRegistry.getHttpClientBuilder(proxy, settings)
+                .disableAutomaticRetries()
+                .build()) {
+            ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentUploads,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "Slack file upload"));
+            try {
+                UploadingVisitor visitor = new UploadingVisitor(executor, client);
+                try {
+                    new GlobWalker(fileToUploadPath).walk(new File(filePath.getRemote()), visitor);
+                } catch (LimitExceededException e) {
+                    // the uploads in flight are interrupted and never shared
+                    String error = String.format("Not uploading to Slack, %s matches %s, narrow down the pattern or raise the limit",
+                            fileToUploadPath, e.getMessage());
+                    listener.getLogger().println(error);
+                    return SlackUploadResult.failed(error);
+                }
+
+                if (visitor.uploads.isEmpty()) {
+                    String error = "No files found for mask=" + this.filePath;
+                    listener.getLogger().println(error);
+                    return SlackUploadResult.failed(error);
                 }
+
+                return doIt(collect(visitor.uploads), client);
+            } finally {
+                executor.shutdownNow();
             }
-        });
+        }
+    }
 
-        if (files.isEmpty()) {
-            listener.getLogger().println("No files found for mask=" + this.filePath);
-            return false;
+    private SlackUploadResult doIt(List<FileUploadResult> uploads, CloseableHttpClient client) {
+        List<String> fileIds = uploads.stream()
+                .filter(upload -> upload.isOk() && !upload.isReused())
+                .map(FileUploadResult::getFileId)
+                .collect(Collectors.toList());
+        List<FileUploadResult> linked = uploads.stream()
+                .filter(FileUploadResult::isReused)
+                .collect(Collectors.toList());
+        if (fileIds.isEmpty() && linked.isEmpty()) {
+            return failed(uploads, "Failed to upload file to Slack");
+        }
+
+        // files that were uploaded are shared even if others failed
+        try {
+            if (!fileIds.isEmpty()) {
+                if (!withRetries(COMPLETE_UPLOAD_METHOD, attempt -> completeUploadExternal(channelId, threadTs, fileIds, client))) {
+                    return failed(uploads, "Failed to complete uploading file to Slack");
+                }
+            }
+            if (!linked.isEmpty() && !linkFiles(linked, fileIds.isEmpty(), client)) {
+                return failed(uploads, "Failed to link files uploaded to Slack before");
+            }
+        } catch (IOException | ParseException | URISyntaxException e) {
+            String msg = "Exception uploading to Slack ";
+            logger.log(Level.WARNING, msg, e);
+            return failed(uploads, msg + e.getMessage());
         }
 
-        return doIt(files);
+        SlackUploadResult result = SlackUploadResult.of(uploads, null);
+        if (result.getFailedCount() > 0) {
+            listener.getLogger().printf("Failed to upload %d of %d files to Slack%n", result.getFailedCount(), uploads.size());
+        }
+        return result;
     }
 
-    private boolean doIt(List<File> files) {
-        List<String> fileIds = new ArrayList<>();
-        try (CloseableHttpClient client = HttpClient.getCloseableHttpClient(proxy)) {
-            for (File file : files) {
-                MultipartEntityBuilder multipartEntityBuilder = MultipartEntityBuilder.create()
-                        .setMode(HttpMultipartMode.LEGACY)
-                        .addBinaryBody("file", file, ContentType.DEFAULT_BINARY, file.getName());
-                JSONObject getUploadUrlResult = getUploadUrlExternal(file, client);
-                if (getUploadUrlResult == null) {
-                    return false;
-                }
+    private SlackUploadResult failed(List<FileUploadResult> uploads, String error) {
+        listener.getLogger().println(error);
+        return SlackUploadResult.of(uploads, error);
+    }
 
-                String uploadUrl = getUploadUrlResult.getString("upload_url");
+    /**
+     * @return the result of each file, in the order they were found
+     */
+    private static List<FileUploadResult> collect(List<Future<FileUploadResult>> uploads) throws InterruptedException {
+        List<FileUploadResult> results = new ArrayList<>();
+        for (Future<FileUploadResult> upload : uploads) {
+            try {
+                results.add(upload.get());
+            } catch (ExecutionException e) {
+                // uploadFile handles its own failures, so this is a bug
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
 
-                if (!uploadFile(uploadUrl, multipartEntityBuilder, client)) {
-                    listener.getLogger().println("Failed to upload file to Slack");
-                    return false;
-                }
-                String fileId = getUploadUrlResult.getString("file_id");
-                fileIds.add(fileId);
+    /**
+     * Hands each matching file to the upload threads as soon as it's found, so uploading doesn't wait for the scan
+     * of the whole workspace. Up to {@link #maxConcurrentUploads} files are uploaded at a time, the others queue up.
+     */
+    private final class UploadingVisitor extends FileVisitor {
+        private final ExecutorService executor;
+        private final CloseableHttpClient client;
+        private final List<Future<FileUploadResult>> uploads = new ArrayList<>();
+        private long totalBytes;
+
+        UploadingVisitor(ExecutorService executor, CloseableHttpClient client) {
+            this.executor = executor;
+            this.client = client;
+        }
+
+        @Override
+        public void visit(File file, String relativePath) throws IOException {
+            if (!file.isFile()) {
+                return;
             }
-            if (!completeUploadExternal(channelId, threadTs , fileIds, client)) {
-                listener.getLogger().println("Failed to complete uploading file to Slack");
-                return false;
+            if (uploads.size() >= maxFiles) {
+                throw new LimitExceededException("more than " + maxFiles + " files");
+            }
+            totalBytes += file.length();
+            if (totalBytes > maxTotalBytes) {
+                throw new LimitExceededException("more than " + (maxTotalBytes >> 20) + " MB");
             }
+            listener.getLogger().println("Adding file " + file.getAbsolutePath());
+            uploads.add(executor.submit(() -> uploadFile(file, client)));
+        }
+    }
+
+    /**
+     * Stops the walk, as {@link FileVisitor} can only do so by throwing.
+     */
+    private static final class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
 
+    private FileUploadResult uploadFile(File file, CloseableHttpClient client) {
+        long start = System.nanoTime();
+        AtomicInteger attempts = new AtomicInteger();
+        FileUploadResult result;
+        try {
+            String sha256;
+            // hashed up front only if the content may have been uploaded before, otherwise while it's uploaded
+            if (uploadedFiles != null && uploadedFiles.containsLength(file.length())) {
+                sha256 = FileChannelEntity.sha256(file);
+                result = linkUploadedFile(file, sha256, start, client);
+            } else {
+                sha256 = null;
+                result = null;
+            }
+            if (result == null) {
+                // every attempt asks for a new upload URL, so one that expired meanwhile isn't used again
+                result = withRetries(file.getName(), attempt -> {
+                    attempts.set(attempt);
+                    return uploadFile(file, sha256, start, attempt, client);
+                });
+            }
         } catch (IOException | ParseException | URISyntaxException e) {
-            String msg = "Exception uploading to Slack ";
-            logger.log(Level.WARNING, msg, e);
-            listener.getLogger().println(msg + e.getMessage());
+            logger.log(Level.WARNING, "Exception uploading " + file + " to Slack", e);
+            result = FileUploadResult.failed(file, String.valueOf(e.getMessage()), elapsedMillis(start), Math.max(attempts.get(), 1));
+        }
+        listener.getLogger().println(result);
+        return result;
+    }
+
+    /**
+     * @param sha256 hash of the content, null to hash it while uploading if uploaded files are remembered
+     */
+    private FileUploadResult uploadFile(File file, String sha256, long start, int attempt, CloseableHttpClient client)
+            throws IOException, ParseException, URISyntaxException {
+        JSONObject getUploadUrlResult = getUploadUrlExternal(file, client);
+        String uploadUrl = getUploadUrlResult.getString("upload_url");
+        boolean hashWhileUploading = uploadedFiles != null && sha256 == null;
+        HttpEntity body = createBody(file, hashWhileUploading);
+        uploadFile(uploadUrl, body, client);
+        String contentHash = sha256;
+        if (hashWhileUploading) {
+            // the multipart body can't be hashed while it's sent
+            contentHash = body instanceof FileChannelEntity ? ((FileChannelEntity) body).getSha256() : FileChannelEntity.sha256(file);
+        }
+        return FileUploadResult.uploaded(file, getUploadUrlResult.getString("file_id"), contentHash, elapsedMillis(start), attempt);
+    }
+
+    /**
+     * Runs the call until it succeeds, fails for good or {@link #MAX_FILE_ATTEMPTS} are used up. The pause between
+     * attempts doubles each time, with jitter so parallel uploads that failed together don't retry together, and is at
+     * least as long as a {@code Retry-After} Slack asked for.
+     */
+    private <T> T withRetries(String name, Attempt<T> call) throws IOException, ParseException, URISyntaxException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.run(attempt);
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                boolean retryable = !(e instanceof UploadFailedException) || ((UploadFailedException) e).retryable;
+                if (!retryable || attempt >= MAX_FILE_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                long retryAfterSeconds = e instanceof UploadFailedException ? ((UploadFailedException) e).retryAfterSeconds : 0;
+                long delay = backoffMillis(attempt, retryAfterSeconds);
+                listener.getLogger().printf("Attempt %d of %d for %s failed, trying again in %dms: %s%n",
+                        attempt, MAX_FILE_ATTEMPTS, name, delay, e.getMessage());
+                try {
+                    pause(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry " + name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt, tests record the pause instead.
+     */
+    void pause(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    static long backoffMillis(int attempt, long retryAfterSeconds) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return Math.max(jittered, TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+    }
+
+    private interface Attempt<T> {
+        T run(int attempt) throws IOException, ParseException, URISyntaxException;
+    }
+
+    /**
+     * A request Slack answered with an error, worth retrying unless the error won't go away by itself.
+     */
+    private static final class UploadFailedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean retryable;
+        private final long retryAfterSeconds;
+
+        UploadFailedException(String message, boolean retryable, long retryAfterSeconds) {
+            super(message);
+            this.retryable = retryable;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    /**
+     * @return the file uploaded before with the same content, null if there's none, it was deleted from Slack or
+     * isn't shared in all the channels, as only their members can open a link to it
+     */
+    private FileUploadResult linkUploadedFile(File file, String sha256, long start, CloseableHttpClient client)
+            throws IOException, URISyntaxException {
+        UploadedFile uploaded = uploadedFiles.get(sha256);
+        if (uploaded == null) {
+            return null;
+        }
+        String permalink = SlackFileInfo.getPermalink(apiUrl, token, uploaded.getFileId(), uploaded.getLength(),
+                Arrays.asList(channelId.split(",")), client);
+        return permalink != null ? FileUploadResult.reused(file, uploaded.getFileId(), permalink, elapsedMillis(start), 1) : null;
+    }
+
+    /**
+     * Posts the links of files uploaded before to the channels they're shared in, Slack shows them like shared files.
+     *
+     * @param withComment whether to start with the initial comment, as no completed upload carried it
+     */
+    private boolean linkFiles(List<FileUploadResult> linked, boolean withComment, CloseableHttpClient client) throws IOException {
+        StringBuilder text = new StringBuilder();
+        if (withComment && initialComment != null) {
+            text.append(initialComment).append('\n');
+        }
+        for (FileUploadResult file : linked) {
+            text.append(file.getPermalink()).append('\n');
+        }
+        for (String channel : channelId.split(",")) {
+            JSONObject message = new JSONObject()
+                    .put("channel", channel)
+                    .put("text", text.toString().trim());
+            if (threadTs != null) {
+                message.put("thread_ts", threadTs);
+            }
+            Request request = Request.post(apiUrl + POST_MESSAGE_METHOD)
+                    .body(new StringEntity(message.toString(), ContentType.APPLICATION_JSON))
+                    .addHeader("Authorization", "Bearer " + token);
+            JSONObject response = callApi(POST_MESSAGE_METHOD, request, client);
+            if (response == null || !response.optBoolean("ok")) {
+                listener.getLogger().println(UPLOAD_FAILED_TEMPLATE + response);
+                return false;
+            }
         }
         return true;
     }
 
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
     private boolean completeUploadExternal(String channelId, String threadTs, List<String> fileIds, CloseableHttpClient client) throws IOException {
         JSONObject jsonObject = new JSONObject();
-        jsonObject.put("channel_id", channelId);
+        if (channelId.indexOf(',') >= 0) {
+            jsonObject.put("channels", channelId);
+        } else {
+            jsonObject.put("channel_id", channelId);
+        }
         if (initialComment != null) {
             jsonObject.put("initial_comment", initialComment);
         }
@@ -133,13 +440,15 @@ public class SlackUploadFileRunner extends MasterToSlaveCallable<Boolean, Throwa
 
         jsonObject.put("files", convertListToJsonArray(fileIds));
         Request completeRequest = Request
-                .post("https://slack.com/api/files.completeUploadExternal")
+                .post(apiUrl + COMPLETE_UPLOAD_METHOD)
                 .body(new StringEntity(jsonObject.toString(), ContentType.APPLICATION_JSON))
                 .addHeader("Authorization", "Bearer " + token);
 
-        JSONObject completeRequestResponse = completeRequest.execute(client).handleResponse(getStandardResponseHandler());
-
-        if (completeRequestResponse != null && !completeRequestResponse.getBoolean("ok")) {
+        JSONObject completeRequestResponse = callApi(COMPLETE_UPLOAD_METHOD, completeRequest, client);
+        if (completeRequestResponse == null) {
+            throw new UploadFailedException(COMPLETE_UPLOAD_METHOD + " failed", true, 0);
+        }
+        if (!completeRequestResponse.getBoolean("ok")) {
             listener.getLogger().println(UPLOAD_FAILED_TEMPLATE + completeRequestResponse);
             return false;
         }
@@ -155,6 +464,31 @@ public class SlackUploadFileRunner extends MasterToSlaveCallable<Boolean, Throwa
         return jsonArray;
     }
 
+    /**
+     * Calls a Slack API method within its rate limit, throttled calls are sent again after the Retry-After period.
+     */
+    private JSONObject callApi(String method, Request request, CloseableHttpClient client) throws IOException {
+        SlackRateLimiter rateLimiter = SlackRateLimiter.get();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire(token, method);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Slack rate limit");
+            }
+            ClassicHttpResponse response = (ClassicHttpResponse) request.execute(client).returnResponse();
+            if (SlackRateLimiter.isThrottled(response) && attempt < SlackRateLimiter.MAX_ATTEMPTS) {
+                rateLimiter.throttled(token, method, SlackRateLimiter.getRetryAfterSeconds(response));
+                continue;
+            }
+            try {
+                return getStandardResponseHandler().handleResponse(response);
+            } catch (HttpException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
     private HttpClientResponseHandler<JSONObject> getStandardResponseHandler() {
         return response -> {
             int status = response.getCode();
@@ -170,34 +504,62 @@ public class SlackUploadFileRunner extends MasterToSlaveCallable<Boolean, Throwa
         };
     }
 
-    private boolean uploadFile(String uploadUrl, MultipartEntityBuilder multipartEntityBuilder, CloseableHttpClient client) throws IOException, ParseException {
+    private HttpEntity createBody(File file, boolean digest) {
+        if (multipartUpload) {
+            return MultipartEntityBuilder.create()
+                    .setMode(HttpMultipartMode.LEGACY)
+                    .addBinaryBody("file", file, ContentType.DEFAULT_BINARY, file.getName())
+                    .build();
+        }
+        return new FileChannelEntity(file, ContentType.DEFAULT_BINARY, digest);
+    }
+
+    private void uploadFile(String uploadUrl, HttpEntity body, CloseableHttpClient client) throws IOException, ParseException {
         Request request = Request.post(uploadUrl)
-                .body(multipartEntityBuilder.build())
+                .body(body)
                 .addHeader("Authorization", "Bearer " + token);
 
-        Response responseBody = request.execute(client);
-        if (responseBody.returnResponse().getCode() != HttpStatus.SC_OK) {
-            listener.getLogger().println(UPLOAD_FAILED_TEMPLATE + responseBody.returnContent().asString());
-            return false;
+        ClassicHttpResponse response = (ClassicHttpResponse) request.execute(client).returnResponse();
+        int status = response.getCode();
+        if (status == HttpStatus.SC_OK) {
+            return;
         }
-        return true;
+        HttpEntity entity = response.getEntity();
+        String content = entity != null ? EntityUtils.toString(entity) : "";
+        // the next attempt asks for a new upload URL, which helps if this one expired, but e.g. a file that's too
+        // large or a malformed request fails the same way again
+        throw new UploadFailedException(UPLOAD_FAILED_TEMPLATE + status + " " + content, isRetryable(status),
+                SlackRateLimiter.isThrottled(response) ? SlackRateLimiter.getRetryAfterSeconds(response) : 0);
+    }
+
+    /**
+     * @return whether an upload answered with the status may succeed when tried again
+     */
+    static boolean isRetryable(int status) {
+        return status >= HttpStatus.SC_SERVER_ERROR
+                || status == HttpStatus.SC_TOO_MANY_REQUESTS
+                // an upload URL that expired or is unknown
+                || status == HttpStatus.SC_NOT_FOUND
+                || status == HttpStatus.SC_GONE;
     }
 
     private JSONObject getUploadUrlExternal(File file, CloseableHttpClient client) throws IOException, URISyntaxException {
-        URI uri = new URIBuilder(GET_UPLOAD_URL_API)
+        URI uri = new URIBuilder(apiUrl + GET_UPLOAD_URL_METHOD)
                 .addParameter("filename", file.getName())
                 .addParameter("length", String.valueOf(file.length()))
                 .build();
         Request getUploadApiRequest = Request.get(uri)
                 .addHeader("Authorization", "Bearer " + token);
 
-        JSONObject getUploadRequestResponse = getUploadApiRequest.execute(client).handleResponse(getStandardResponseHandler());
-        if (getUploadRequestResponse != null && !getUploadRequestResponse.getBoolean("ok")) {
-            listener.getLogger().println(UPLOAD_FAILED_TEMPLATE + getUploadRequestResponse);
-            return null;
-        } else if (getUploadRequestResponse == null) {
-            listener.getLogger().println(UPLOAD_FAILED_TEMPLATE);
-            return null;
+        JSONObject getUploadRequestResponse = callApi(GET_UPLOAD_URL_METHOD, getUploadApiRequest, client);
+        if (getUploadRequestResponse == null) {
+            throw new UploadFailedException(UPLOAD_FAILED_TEMPLATE + GET_UPLOAD_URL_METHOD + " failed", true, 0);
+        }
+        if (!getUploadRequestResponse.getBoolean("ok")) {
+            // errors like invalid_auth or file_size_exceeded won't go away by retrying
+            String error = getUploadRequestResponse.optString("error");
+            throw new UploadFailedException(UPLOAD_FAILED_TEMPLATE + getUploadRequestResponse,
+                    "internal_error".equals(error) || "fatal_error".equals(error), 0);
         }
         return getUploadRequestResponse;
     }
@@ -12,14 +12,24 @@ import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
 import hudson.util.ListBoxModel;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import jenkins.model.Jenkins;
 import jenkins.plugins.slack.CredentialsObtainer;
+import jenkins.plugins.slack.HttpClientRegistry;
 import jenkins.plugins.slack.Messages;
 import jenkins.plugins.slack.SlackNotifier;
 import jenkins.plugins.slack.cache.SlackChannelIdCache;
+import jenkins.plugins.slack.cache.SlackFileCache;
+import jenkins.plugins.slack.cache.UploadedFile;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
@@ -39,6 +49,10 @@ public class SlackUploadFileStep extends Step {
     private String initialComment;
     private String filePath;
     private boolean failOnError;
+    private int maxConcurrentUploads = SlackUploadFileRunner.DEFAULT_MAX_CONCURRENT_UPLOADS;
+    private int maxFiles = SlackUploadFileRunner.DEFAULT_MAX_FILES;
+    private int maxTotalSizeMb = SlackUploadFileRunner.DEFAULT_MAX_TOTAL_SIZE_MB;
+    private boolean reuseUploadedFiles;
 
     @DataBoundConstructor
     public SlackUploadFileStep(String filePath) {
@@ -85,6 +99,42 @@ public class SlackUploadFileStep extends Step {
         this.failOnError = failOnError;
     }
 
+    public int getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentUploads(int maxConcurrentUploads) {
+        this.maxConcurrentUploads = maxConcurrentUploads > 0 ? maxConcurrentUploads : SlackUploadFileRunner.DEFAULT_MAX_CONCURRENT_UPLOADS;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    @DataBoundSetter
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles > 0 ? maxFiles : SlackUploadFileRunner.DEFAULT_MAX_FILES;
+    }
+
+    public int getMaxTotalSizeMb() {
+        return maxTotalSizeMb;
+    }
+
+    @DataBoundSetter
+    public void setMaxTotalSizeMb(int maxTotalSizeMb) {
+        this.maxTotalSizeMb = maxTotalSizeMb > 0 ? maxTotalSizeMb : SlackUploadFileRunner.DEFAULT_MAX_TOTAL_SIZE_MB;
+    }
+
+    public boolean isReuseUploadedFiles() {
+        return reuseUploadedFiles;
+    }
+
+    @DataBoundSetter
+    public void setReuseUploadedFiles(boolean reuseUploadedFiles) {
+        this.reuseUploadedFiles = reuseUploadedFiles;
+    }
+
     @Override
     public StepExecution start(StepContext context) {
         return new SlackUploadFileStepExecution(this, context);
@@ -117,6 +167,8 @@ public class SlackUploadFileStep extends Step {
     public static class SlackUploadFileStepExecution extends SynchronousNonBlockingStepExecution<Void> {
 
         private static final long serialVersionUID = 1L;
+        private static final Logger logger = Logger.getLogger(SlackUploadFileStepExecution.class.getName());
+        private static final Pattern SHA256_REGEX = Pattern.compile("[0-9a-f]{64}");
 
         private transient final SlackUploadFileStep step;
 
@@ -153,16 +205,31 @@ public class SlackUploadFileStep extends Step {
             String threadTs = getThreadTs(channel);
 
             SlackFileRequest slackFileRequest = new SlackFileRequest(
-                    filePath, populatedToken, channelId, step.initialComment, step.filePath, threadTs
+                    filePath, populatedToken, channelId, step.initialComment, step.filePath, threadTs, step.maxConcurrentUploads,
+                    step.maxFiles, step.maxTotalSizeMb
             );
 
             assert filePath != null;
             VirtualChannel virtualChannel = filePath.getChannel();
             assert virtualChannel != null;
 
-            Boolean result = virtualChannel.callAsync(new SlackUploadFileRunner(listener, Jenkins.get().proxy, slackFileRequest)).get();
-            if (!result) {
+            // the agent asks the controller about each file, the cache itself stays on the controller
+            String job = getContext().get(Run.class).getParent().getFullName();
+            UploadedFileLookup uploadedFiles = step.reuseUploadedFiles
+                    ? virtualChannel.export(UploadedFileLookup.class, UploadedFileLookup.forJob(populatedToken, job)) : null;
+
+            SlackUploadResult result = virtualChannel.callAsync(
+                    new SlackUploadFileRunner(listener, Jenkins.get().proxy, slackFileRequest, uploadedFiles)).get();
+            if (uploadedFiles != null) {
+                rememberUploads(populatedToken, job, result);
+            }
+            if (!result.isOk()) {
                 String errorMessage = "Failed uploading file to slack";
+                if (result.getError() != null) {
+                    errorMessage += ": " + result.getError();
+                } else {
+                    errorMessage += ": " + result.getFailedCount() + " of " + result.getFiles().size() + " files failed";
+                }
                 if (step.failOnError) {
                     throw new AbortException(errorMessage);
                 } else {
@@ -172,6 +239,30 @@ public class SlackUploadFileStep extends Step {
 
             return null;
         }
+
+        /**
+         * Remembers the files the agent reports as uploaded once Slack confirms them. The agent's hashes are only
+         * offered to later builds of the same job, so an agent can't make other jobs link files it made up.
+         */
+        private static void rememberUploads(String token, String job, SlackUploadResult result) {
+            Map<String, UploadedFile> verified = new LinkedHashMap<>();
+            CloseableHttpClient client = HttpClientRegistry.getHttpClient(Jenkins.get().getProxy());
+            for (FileUploadResult upload : result.getNewFiles()) {
+                if (!SHA256_REGEX.matcher(upload.getSha256()).matches()) {
+                    continue;
+                }
+                try {
+                    String permalink = SlackFileInfo.getPermalink(SlackUploadFileRunner.API_URL, token, upload.getFileId(),
+                            upload.getLength(), null, client);
+                    if (permalink != null) {
+                        verified.put(upload.getSha256(), new UploadedFile(upload.getFileId(), upload.getLength(), permalink));
+                    }
+                } catch (IOException | URISyntaxException e) {
+                    logger.log(Level.FINE, "Failed to remember " + upload.getFileName() + " uploaded to Slack", e);
+                }
+            }
+            SlackFileCache.get().putAll(token, job, verified);
+        }
     }
 
     private static String getThreadTs(String channelName) {
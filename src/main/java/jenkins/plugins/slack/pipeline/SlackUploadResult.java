@@ -0,0 +1,76 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Outcome of a {@link SlackUploadFileRunner}, with the result of each file.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackUploadResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<FileUploadResult> files;
+    private final String error;
+
+    private SlackUploadResult(List<FileUploadResult> files, String error) {
+        this.files = Collections.unmodifiableList(files);
+        this.error = error;
+    }
+
+    /**
+     * @param error why the files weren't shared, null if those that were uploaded were shared
+     */
+    static SlackUploadResult of(List<FileUploadResult> files, String error) {
+        return new SlackUploadResult(files, error);
+    }
+
+    /**
+     * Nothing was uploaded.
+     */
+    static SlackUploadResult failed(String error) {
+        return new SlackUploadResult(Collections.emptyList(), error);
+    }
+
+    /**
+     * @return whether all files were uploaded and shared
+     */
+    public boolean isOk() {
+        return error == null && files.stream().allMatch(FileUploadResult::isOk);
+    }
+
+    /**
+     * @return the result of each file, in the order they were found
+     */
+    public List<FileUploadResult> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return why the files weren't shared, null if they were
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the files this upload added to Slack whose content was hashed, none if they weren't shared
+     */
+    public List<FileUploadResult> getNewFiles() {
+        if (error != null) {
+            return Collections.emptyList();
+        }
+        return files.stream()
+                .filter(file -> file.isOk() && !file.isReused() && file.getSha256() != null)
+                .collect(Collectors.toList());
+    }
+
+    public long getFailedCount() {
+        return files.stream().filter(file -> !file.isOk()).count();
+    }
+}
@@ -3,20 +3,17 @@ package jenkins.plugins.slack.pipeline;
 import com.google.common.collect.ImmutableSet;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
-import hudson.ProxyConfiguration;
 import hudson.Util;
 import hudson.model.Item;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.util.ListBoxModel;
-import java.io.IOException;
 import java.util.Objects;
 import java.util.Set;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import jenkins.plugins.slack.CredentialsObtainer;
-import jenkins.plugins.slack.HttpClient;
+import jenkins.plugins.slack.HttpClientRegistry;
 import jenkins.plugins.slack.Messages;
 import jenkins.plugins.slack.SlackNotifier;
 import jenkins.plugins.slack.user.EmailSlackUserIdResolver;
@@ -140,19 +137,11 @@ public class SlackUserIdFromEmailStep extends Step {
                 return null;
             }
 
-            String slackUserId = null;
-            try (CloseableHttpClient client = getHttpClient()) {
-                slackUserId = new EmailSlackUserIdResolver(populatedToken, client).resolveUserIdForEmailAddress(email);
-            } catch (final IOException e) {
-                logger.log(Level.WARNING, "Error closing HttpClient", e);
-            }
-            return slackUserId;
+            return new EmailSlackUserIdResolver(populatedToken, getHttpClient()).resolveUserIdForEmailAddress(email);
         }
 
         protected CloseableHttpClient getHttpClient() {
-            final Jenkins jenkins = Jenkins.getInstanceOrNull();
-            final ProxyConfiguration proxy = jenkins != null ? jenkins.proxy : null;
-            return HttpClient.getCloseableHttpClient(proxy);
+            return HttpClientRegistry.getHttpClient();
         }
 
     }
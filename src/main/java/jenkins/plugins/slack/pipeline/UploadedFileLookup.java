@@ -0,0 +1,34 @@
+package jenkins.plugins.slack.pipeline;
+
+import jenkins.plugins.slack.cache.SlackFileCache;
+import jenkins.plugins.slack.cache.UploadedFile;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The {@link SlackFileCache} of one job and workspace, exported to the agent that uploads the files.
+ *
+ * Only lets the agent read, it reports what it uploaded in its {@link SlackUploadResult} instead and the controller
+ * decides what to remember.
+ */
+@Restricted(NoExternalUse.class)
+public interface UploadedFileLookup {
+
+    boolean containsLength(long length);
+
+    UploadedFile get(String sha256);
+
+    static UploadedFileLookup forJob(String token, String job) {
+        return new UploadedFileLookup() {
+            @Override
+            public boolean containsLength(long length) {
+                return SlackFileCache.get().containsLength(token, job, length);
+            }
+
+            @Override
+            public UploadedFile get(String sha256) {
+                return SlackFileCache.get().get(token, job, sha256);
+            }
+        };
+    }
+}
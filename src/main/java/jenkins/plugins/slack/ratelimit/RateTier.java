@@ -0,0 +1,65 @@
+package jenkins.plugins.slack.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Slack's Web API rate limit tiers, see https://api.slack.com/apis/rate-limits.
+ *
+ * Limits apply per method and workspace, a short burst above the per minute rate is tolerated. Messages are limited
+ * per channel instead.
+ */
+public enum RateTier {
+    TIER_1(1, 1),
+    TIER_2(20, 5),
+    TIER_3(50, 10),
+    TIER_4(100, 20),
+    // chat.postMessage and incoming webhooks allow roughly one message per second and channel
+    POST_MESSAGE(60, 10);
+
+    private static final Map<String, RateTier> METHODS = new HashMap<>();
+
+    static {
+        METHODS.put("chat.postMessage", POST_MESSAGE);
+        METHODS.put(SlackRateLimiter.INCOMING_WEBHOOK, POST_MESSAGE);
+        METHODS.put("chat.update", TIER_3);
+        METHODS.put("reactions.add", TIER_3);
+        METHODS.put("reactions.remove", TIER_2);
+        METHODS.put("conversations.list", TIER_2);
+        METHODS.put("users.list", TIER_2);
+        METHODS.put("users.lookupByEmail", TIER_3);
+        METHODS.put("files.getUploadURLExternal", TIER_4);
+        METHODS.put("files.completeUploadExternal", TIER_4);
+    }
+
+    private final int perMinute;
+    private final int burst;
+
+    RateTier(int perMinute, int burst) {
+        this.perMinute = perMinute;
+        this.burst = burst;
+    }
+
+    public int getPerMinute() {
+        return perMinute;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return whether the limit applies to each channel (or webhook) on its own rather than the whole workspace
+     */
+    public boolean isPerChannel() {
+        return this == POST_MESSAGE;
+    }
+
+    /**
+     * @param method Slack API method, e.g. {@code chat.postMessage}
+     * @return the tier of the method, unknown methods are treated as tier 3 which covers most of the API
+     */
+    public static RateTier forMethod(String method) {
+        return METHODS.getOrDefault(method, TIER_3);
+    }
+}
@@ -0,0 +1,339 @@
+package jenkins.plugins.slack.ratelimit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import jenkins.plugins.slack.TokenDigest;
+import jenkins.util.Timer;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Central dispatcher for calls to the Slack API.
+ *
+ * Every call first takes a permit from a token bucket per bot token and API method sized after the method's
+ * {@link RateTier}. Messages are limited per channel instead, see {@link RateTier#isPerChannel()}, so posting to many
+ * rooms isn't held back by a single bucket for the whole workspace. Calls that find the bucket empty are queued until
+ * a permit is available rather than sent and rejected by Slack. Buckets that refilled completely are dropped, they
+ * would hand out the same permits as a new one. When Slack still answers with HTTP 429 the caller reports it with {@link #throttled},
+ * which holds back all calls for that token until the {@code Retry-After} period has passed.
+ *
+ * There is one dispatcher per JVM, so uploads running on an agent are limited separately from the controller.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackRateLimiter {
+
+    private static final Logger logger = Logger.getLogger(SlackRateLimiter.class.getName());
+
+    /**
+     * Pseudo method for posts to an incoming webhook.
+     */
+    public static final String INCOMING_WEBHOOK = "incoming-webhook";
+
+    /**
+     * How often a throttled call is sent again before giving up.
+     */
+    public static final int MAX_ATTEMPTS = 5;
+
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Methods beyond this many are counted together, so stats for arbitrary method names can't grow without bound.
+     */
+    static final int MAX_STATS = 64;
+    static final String OTHER_METHODS = "other";
+
+    private static final SlackRateLimiter INSTANCE = new SlackRateLimiter();
+
+    private final LongSupplier nanoTime;
+    private final Supplier<ScheduledExecutorService> scheduler;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> pausedUntil = new ConcurrentHashMap<>();
+    private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong lastSweep;
+
+    /**
+     * Creates a dispatcher independent of the shared one, e.g. for tests.
+     */
+    public SlackRateLimiter() {
+        this(System::nanoTime, Timer::get);
+    }
+
+    SlackRateLimiter(LongSupplier nanoTime, Supplier<ScheduledExecutorService> scheduler) {
+        this.nanoTime = nanoTime;
+        this.scheduler = scheduler;
+        this.lastSweep = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    public static SlackRateLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Blocks until a call to the method may be sent.
+     *
+     * @param token bot token or webhook token the call is made with, may be null
+     * @param method Slack API method, e.g. {@code chat.postMessage}
+     */
+    public void acquire(String token, String method) throws InterruptedException {
+        acquire(token, method, null);
+    }
+
+    /**
+     * Blocks until a call to the method may be sent to the channel.
+     *
+     * @param channel channel or webhook the call posts to, only used by methods limited per channel, may be null
+     */
+    public void acquire(String token, String method, String channel) throws InterruptedException {
+        long delay = reserve(token, method, channel);
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } finally {
+                dequeued(method);
+            }
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquire(String, String)}.
+     *
+     * @return a future completed once a call to the method may be sent
+     */
+    public CompletableFuture<Void> acquireAsync(String token, String method) {
+        return acquireAsync(token, method, null);
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquire(String, String, String)}.
+     *
+     * @return a future completed once a call to the method may be sent to the channel
+     */
+    public CompletableFuture<Void> acquireAsync(String token, String method, String channel) {
+        long delay = reserve(token, method, channel);
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        scheduler.get().schedule(() -> {
+            dequeued(method);
+            permit.complete(null);
+        }, delay, TimeUnit.NANOSECONDS);
+        return permit;
+    }
+
+    /**
+     * Records that Slack rejected a call with HTTP 429, all further calls with the token wait for the retry period.
+     *
+     * @param retryAfterSeconds value of the {@code Retry-After} header
+     */
+    public void throttled(String token, String method, long retryAfterSeconds) {
+        long until = nanoTime.getAsLong() + TimeUnit.SECONDS.toNanos(Math.max(retryAfterSeconds, 0));
+        pausedUntil.merge(key(token), until, Math::max);
+        stats(method).throttled.increment();
+        logger.info(String.format("Rate limited by Slack on %s, holding back calls for %ds", method, retryAfterSeconds));
+    }
+
+    /**
+     * @return whether the response is Slack rejecting the call because of rate limiting
+     */
+    public static boolean isThrottled(HttpResponse response) {
+        return response.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * @return the {@code Retry-After} of a throttled response in seconds
+     */
+    public static long getRetryAfterSeconds(HttpResponse response) {
+        Header header = response.getFirstHeader("Retry-After");
+        if (header != null) {
+            try {
+                return Long.parseLong(header.getValue().trim());
+            } catch (NumberFormatException e) {
+                logger.fine("Ignoring unexpected Retry-After value: " + header.getValue());
+            }
+        }
+        return DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    /**
+     * @return number of calls currently waiting for a permit
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return number of calls Slack rejected with HTTP 429
+     */
+    public long getThrottledCount() {
+        return stats.values().stream().mapToLong(methodStats -> methodStats.throttled.sum()).sum();
+    }
+
+    /**
+     * @return per method counters, sorted by method name
+     */
+    public Map<String, MethodStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    /**
+     * Takes a permit for the method and returns how long to wait before it may be used.
+     */
+    long reserve(String token, String method) {
+        return reserve(token, method, null);
+    }
+
+    long reserve(String token, String method, String channel) {
+        long now = nanoTime.getAsLong();
+        sweep(now);
+        String key = key(token);
+        RateTier tier = RateTier.forMethod(method);
+        String bucketKey = key + ' ' + method;
+        if (tier.isPerChannel() && channel != null) {
+            bucketKey += ' ' + channel;
+        }
+        long[] reserved = new long[1];
+        // reserved inside compute, so a sweep can't drop the bucket between looking it up and using it
+        buckets.compute(bucketKey, (k, bucket) -> {
+            TokenBucket result = bucket != null ? bucket : new TokenBucket(tier, now);
+            reserved[0] = result.reserve(now);
+            return result;
+        });
+        long delay = reserved[0];
+        Long paused = pausedUntil.get(key);
+        if (paused != null) {
+            if (paused - now > 0) {
+                delay = Math.max(delay, paused - now);
+            } else {
+                pausedUntil.remove(key, paused);
+            }
+        }
+
+        MethodStats methodStats = stats(method);
+        methodStats.calls.increment();
+        if (delay > 0) {
+            methodStats.delayed.increment();
+            methodStats.queued.incrementAndGet();
+            queueDepth.incrementAndGet();
+        }
+        return delay;
+    }
+
+    /**
+     * Drops the buckets that are full again and the pauses that are over, at most once per {@link #SWEEP_INTERVAL_NANOS}.
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (String bucketKey : buckets.keySet()) {
+            buckets.computeIfPresent(bucketKey, (k, bucket) -> bucket.isFull(now) ? null : bucket);
+        }
+        pausedUntil.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+    }
+
+    int getBucketCount() {
+        return buckets.size();
+    }
+
+    private void dequeued(String method) {
+        stats(method).queued.decrementAndGet();
+        queueDepth.decrementAndGet();
+    }
+
+    private MethodStats stats(String method) {
+        MethodStats methodStats = stats.get(method);
+        if (methodStats != null) {
+            return methodStats;
+        }
+        return stats.computeIfAbsent(stats.size() < MAX_STATS ? method : OTHER_METHODS, k -> new MethodStats());
+    }
+
+    // tokens are only kept in memory, but there's no need to keep them in plain text
+    private static String key(String token) {
+        return token == null ? "" : TokenDigest.of(token);
+    }
+
+    /**
+     * Counters for one API method across all tokens.
+     */
+    public static final class MethodStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder delayed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getDelayed() {
+            return delayed.sum();
+        }
+
+        public long getThrottled() {
+            return throttled.sum();
+        }
+
+        public int getQueued() {
+            return queued.get();
+        }
+
+        @Override
+        public String toString() {
+            return "calls=" + getCalls() + ", delayed=" + getDelayed() + ", throttled=" + getThrottled() + ", queued=" + getQueued();
+        }
+    }
+
+    /**
+     * Token bucket handing out reservations, a permit taken while the bucket is empty is paid back by waiting,
+     * which keeps queued calls in arrival order.
+     */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double permitsPerNano;
+        private double permits;
+        private long lastRefill;
+
+        TokenBucket(RateTier tier, long now) {
+            this.capacity = tier.getBurst();
+            this.permitsPerNano = tier.getPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+            this.permits = capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized long reserve(long now) {
+            refill(now);
+            permits -= 1;
+            return permits >= 0 ? 0 : (long) Math.ceil(-permits / permitsPerNano);
+        }
+
+        /**
+         * @return whether the bucket holds as many permits as a new one
+         */
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return permits >= capacity;
+        }
+
+        private void refill(long now) {
+            permits = Math.min(capacity, permits + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
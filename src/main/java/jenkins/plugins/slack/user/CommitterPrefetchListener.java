@@ -0,0 +1,48 @@
+package jenkins.plugins.slack.user;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.SCMListener;
+import hudson.scm.ChangeLogSet;
+import hudson.scm.SCM;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.CredentialsObtainer;
+import jenkins.plugins.slack.SlackNotifier;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Starts resolving the Slack user IDs of a run's committers as soon as its changelog is known,
+ * if enabled in the global configuration.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class CommitterPrefetchListener extends SCMListener {
+
+    private static final Logger LOGGER = Logger.getLogger(CommitterPrefetchListener.class.getName());
+
+    @Override
+    public void onChangeLogParsed(Run<?, ?> build, SCM scm, TaskListener listener, ChangeLogSet<?> changelog) {
+        if (changelog.isEmptySet()) {
+            return;
+        }
+        SlackNotifier.DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(SlackNotifier.DescriptorImpl.class);
+        SlackUserIdResolver userIdResolver = descriptor.getSlackUserIdResolver();
+        if (!descriptor.isPrefetchCommitters() || !descriptor.isBotUser() || userIdResolver == null
+                || userIdResolver instanceof NoSlackUserIdResolver) {
+            return;
+        }
+
+        String populatedToken;
+        try {
+            populatedToken = CredentialsObtainer.getTokenToUse(descriptor.getTokenCredentialId(), build.getParent(),
+                    descriptor.getToken());
+        } catch (IllegalArgumentException e) {
+            LOGGER.fine("No Slack token configured, not resolving committers in advance");
+            return;
+        }
+        userIdResolver.prefetchUserIds(build, changelog, populatedToken);
+    }
+}
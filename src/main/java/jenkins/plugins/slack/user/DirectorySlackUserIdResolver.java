@@ -0,0 +1,49 @@
+package jenkins.plugins.slack.user;
+
+import hudson.Extension;
+import hudson.tasks.MailAddressResolver;
+import java.util.List;
+import jenkins.plugins.slack.cache.SlackUserDirectory;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Resolves email addresses from a copy of the workspace's user directory kept by {@link SlackUserDirectory},
+ * looking up only the addresses missing from it one by one.
+ */
+public class DirectorySlackUserIdResolver extends EmailSlackUserIdResolver {
+
+    public DirectorySlackUserIdResolver(String authToken, CloseableHttpClient httpClient, List<MailAddressResolver> mailAddressResolvers) {
+        super(authToken, httpClient, mailAddressResolvers);
+    }
+
+    public DirectorySlackUserIdResolver(String authToken, CloseableHttpClient httpClient) {
+        this(authToken, httpClient, null);
+    }
+
+    @DataBoundConstructor
+    public DirectorySlackUserIdResolver() {
+        this(null, null);
+    }
+
+    @Override
+    public String resolveUserIdForEmailAddress(String emailAddress, String token) {
+        if (StringUtils.isNotEmpty(emailAddress) && StringUtils.isNotEmpty(token)) {
+            String userId = SlackUserDirectory.get().getUserId(token, emailAddress);
+            if (userId != null) {
+                return userId;
+            }
+        }
+        return super.resolveUserIdForEmailAddress(emailAddress, token);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends SlackUserIdResolverDescriptor {
+
+        @Override
+        public String getDisplayName() {
+            return "Slack directory User ID Resolver";
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
@@ -54,11 +55,14 @@ public class EmailSlackUserIdResolver extends SlackUserIdResolver {
     private static final Logger LOGGER = Logger.getLogger(EmailSlackUserIdResolver.class.getName());
 
     private static final String AUTHORIZATION_BEARER_TOKEN_FORMAT = "Bearer %s";
-    private static final String LOOKUP_BY_EMAIL_METHOD_URL = "https://slack.com/api/users.lookupByEmail";
+    private static final String LOOKUP_BY_EMAIL_METHOD = "users.lookupByEmail";
+    private static final String LOOKUP_BY_EMAIL_METHOD_URL = "https://slack.com/api/" + LOOKUP_BY_EMAIL_METHOD;
     private static final String LOOKUP_BY_EMAIL_METHOD_URL_FORMAT = LOOKUP_BY_EMAIL_METHOD_URL + "?email=%s";
     private static final String SLACK_OK_FIELD = "ok";
     private static final String SLACK_USER_FIELD = "user";
     private static final String SLACK_ID_FIELD = "id";
+    private static final String SLACK_ERROR_FIELD = "error";
+    private static final String USERS_NOT_FOUND_ERROR = "users_not_found";
 
     private List<MailAddressResolver> mailAddressResolvers;
     private transient Function<User, String> defaultMailAddressResolver;
@@ -92,6 +96,11 @@ public class EmailSlackUserIdResolver extends SlackUserIdResolver {
     }
 
     protected String resolveUserId(User user) {
+        return resolveUserId(user, authToken);
+    }
+
+    @Override
+    protected String resolveUserId(User user, String token) {
         Optional<String> userId = Optional.ofNullable(mailAddressResolvers)
                 .map(Collection::stream)
                 .orElseGet(Stream::empty)
@@ -105,7 +114,7 @@ public class EmailSlackUserIdResolver extends SlackUserIdResolver {
                     }
                 })
                 .filter(StringUtils::isNotEmpty)
-                .map(this::resolveUserIdForEmailAddress)
+                .map(emailAddress -> resolveUserIdForEmailAddress(emailAddress, token))
                 .filter(StringUtils::isNotEmpty)
                 .findAny();
 
@@ -113,41 +122,69 @@ public class EmailSlackUserIdResolver extends SlackUserIdResolver {
         if (userId.isPresent()) {
             return userId.get();
         } else if (defaultMailAddressResolver != null){
-            return resolveUserIdForEmailAddress(defaultMailAddressResolver.apply(user));
+            return resolveUserIdForEmailAddress(defaultMailAddressResolver.apply(user), token);
         } else {
             return null;
         }
     }
 
     public String resolveUserIdForEmailAddress(String emailAddress) {
+        return resolveUserIdForEmailAddress(emailAddress, authToken);
+    }
+
+    public String resolveUserIdForEmailAddress(String emailAddress, String token) {
         if (StringUtils.isEmpty(emailAddress)) {
             LOGGER.fine("Email address was empty");
             return null;
         }
 
-        if (StringUtils.isEmpty(authToken)) {
+        if (StringUtils.isEmpty(token)) {
             LOGGER.fine("Auth token was empty");
             return null;
         }
 
+        return SlackUserIdCache.get().getUserId(token, emailAddress, email -> lookupUserId(email, token));
+    }
+
+    /**
+     * @return the user ID, {@link SlackUserIdCache#NOT_FOUND} if Slack has no user with the email address,
+     * null if the lookup failed
+     */
+    private String lookupUserId(String emailAddress, String token) {
         String slackUserId = null;
         final String url = String.format(LOOKUP_BY_EMAIL_METHOD_URL_FORMAT, emailAddress);
         final HttpGet getRequest = new HttpGet(url);
         getRequest.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_FORM_URLENCODED.getMimeType());
-        getRequest.addHeader(HttpHeaders.AUTHORIZATION, String.format(AUTHORIZATION_BEARER_TOKEN_FORMAT, authToken));
-        try (CloseableHttpResponse response = httpClient.execute(getRequest)) {
-            final int responseCode = response.getCode();
-            if (HttpStatus.SC_OK == responseCode) {
-                final HttpEntity entity = response.getEntity();
-                final JSONObject slackResponse = new JSONObject(EntityUtils.toString(entity));
-                // additionally, make sure the JSON response contains an 'ok: true' entry
-                if (slackResponse.optBoolean(SLACK_OK_FIELD)) {
-                    final JSONObject slackUser = slackResponse.getJSONObject(SLACK_USER_FIELD);
-                    slackUserId = slackUser.getString(SLACK_ID_FIELD);
+        getRequest.addHeader(HttpHeaders.AUTHORIZATION, String.format(AUTHORIZATION_BEARER_TOKEN_FORMAT, token));
+        final SlackRateLimiter rateLimiter = SlackRateLimiter.get();
+        for (int attempt = 1; attempt <= SlackRateLimiter.MAX_ATTEMPTS; attempt++) {
+            try {
+                rateLimiter.acquire(token, LOOKUP_BY_EMAIL_METHOD);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            try (CloseableHttpResponse response = getHttpClient().execute(getRequest)) {
+                final int responseCode = response.getCode();
+                if (SlackRateLimiter.isThrottled(response)) {
+                    rateLimiter.throttled(token, LOOKUP_BY_EMAIL_METHOD, SlackRateLimiter.getRetryAfterSeconds(response));
+                    continue;
+                }
+                if (HttpStatus.SC_OK == responseCode) {
+                    final HttpEntity entity = response.getEntity();
+                    final JSONObject slackResponse = new JSONObject(EntityUtils.toString(entity));
+                    // additionally, make sure the JSON response contains an 'ok: true' entry
+                    if (slackResponse.optBoolean(SLACK_OK_FIELD)) {
+                        final JSONObject slackUser = slackResponse.getJSONObject(SLACK_USER_FIELD);
+                        slackUserId = slackUser.getString(SLACK_ID_FIELD);
+                    } else if (USERS_NOT_FOUND_ERROR.equals(slackResponse.optString(SLACK_ERROR_FIELD))) {
+                        slackUserId = SlackUserIdCache.NOT_FOUND;
+                    }
                 }
+            } catch (IOException | ParseException | JSONException ex) {
+                LOGGER.log(Level.WARNING, "Error getting userId from Slack", ex);
             }
-        } catch (IOException | ParseException | JSONException ex) {
-            LOGGER.log(Level.WARNING, "Error getting userId from Slack", ex);
+            break;
         }
         return slackUserId;
     }
@@ -0,0 +1,95 @@
+package jenkins.plugins.slack.user;
+
+import hudson.model.Run;
+import hudson.model.User;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.plugins.slack.TokenDigest;
+
+/**
+ * Slack user IDs of a run's committers, resolved in the background as soon as its changelog was parsed,
+ * so the notification at the end of the build doesn't have to wait for the users API.
+ *
+ * Only kept in memory and not attached to the run, so nothing ends up in its build.xml. Dropped once the run is
+ * no longer loaded, after a restart the committers are resolved again when needed.
+ * Kept apart for each token and kind of resolver, a notification only uses IDs resolved the way it would resolve them.
+ */
+final class PrefetchedUserIds {
+
+    private static final Logger LOGGER = Logger.getLogger(PrefetchedUserIds.class.getName());
+
+    // by the key of the token and resolver
+    private static final Map<Run<?, ?>, Map<String, PrefetchedUserIds>> RUNS = new WeakHashMap<>();
+
+    private final List<Prefetch> prefetches = new CopyOnWriteArrayList<>();
+
+    private PrefetchedUserIds() {
+    }
+
+    /**
+     * @return the committers of the run resolved in advance with the token by the kind of resolver, null if none were
+     */
+    static synchronized PrefetchedUserIds get(Run<?, ?> run, String token, Class<? extends SlackUserIdResolver> resolver) {
+        Map<String, PrefetchedUserIds> prefetched = RUNS.get(run);
+        return prefetched != null && token != null ? prefetched.get(key(token, resolver)) : null;
+    }
+
+    /**
+     * @return the committers of the run resolved in advance with the token by the kind of resolver, added if missing
+     */
+    static synchronized PrefetchedUserIds getOrAdd(Run<?, ?> run, String token, Class<? extends SlackUserIdResolver> resolver) {
+        return RUNS.computeIfAbsent(run, r -> new HashMap<>())
+                .computeIfAbsent(key(token, resolver), k -> new PrefetchedUserIds());
+    }
+
+    private static String key(String token, Class<? extends SlackUserIdResolver> resolver) {
+        return TokenDigest.of(token) + ' ' + resolver.getName();
+    }
+
+    void add(Set<User> authors, CompletableFuture<Map<User, String>> userIds) {
+        prefetches.add(new Prefetch(authors, userIds));
+    }
+
+    /**
+     * Collects the user IDs, waiting for those still being resolved until the deadline.
+     *
+     * @param resolved receives the authors that were resolved, including those without a Slack user
+     * @param userIds receives the user ID of each author that has one
+     * @param deadline {@link System#nanoTime()} after which authors still being resolved are skipped
+     */
+    void collect(Set<User> resolved, Map<User, String> userIds, long deadline) {
+        for (Prefetch prefetch : prefetches) {
+            try {
+                userIds.putAll(prefetch.userIds.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+                resolved.addAll(prefetch.authors);
+            } catch (TimeoutException e) {
+                LOGGER.fine("Committers are still being resolved in advance, resolving the rest with the time left");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Failed to resolve committers in advance", e.getCause());
+            }
+        }
+    }
+
+    private static final class Prefetch {
+        private final Set<User> authors;
+        private final CompletableFuture<Map<User, String>> userIds;
+
+        private Prefetch(Set<User> authors, CompletableFuture<Map<User, String>> userIds) {
+            this.authors = authors;
+            this.userIds = userIds;
+        }
+    }
+}
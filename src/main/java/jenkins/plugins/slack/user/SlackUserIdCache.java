@@ -0,0 +1,125 @@
+package jenkins.plugins.slack.user;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import jenkins.model.Jenkins;
+import jenkins.plugins.slack.SlackNotifier;
+import jenkins.plugins.slack.TokenDigest;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Remembers the Slack user ID of email addresses, shared by all resolvers.
+ *
+ * Email addresses without a Slack user, like those of bots or people who left, are remembered as well but for a
+ * shorter time, so they don't cost a {@code users.lookupByEmail} call for every commit of every build.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackUserIdCache {
+
+    public static final int DEFAULT_TTL_MINUTES = 24 * 60;
+    public static final int DEFAULT_NOT_FOUND_TTL_MINUTES = 60;
+
+    /**
+     * Returned by a lookup when Slack has no user with the email address.
+     */
+    public static final String NOT_FOUND = "";
+
+    private static final SlackUserIdCache INSTANCE = new SlackUserIdCache(Ticker.systemTicker(),
+            () -> configured(true), () -> configured(false));
+
+    // holds a lookup in flight as an incomplete future, so it runs without holding the lock of the cache entry
+    private final AsyncCache<String, String> userIds;
+
+    SlackUserIdCache(Ticker ticker, Supplier<Duration> ttl, Supplier<Duration> notFoundTtl) {
+        this.userIds = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfter(new Expiry<String, String>() {
+                    @Override
+                    public long expireAfterCreate(String key, String userId, long currentTime) {
+                        return (NOT_FOUND.equals(userId) ? notFoundTtl : ttl).get().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, String userId, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, userId, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, String userId, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public static SlackUserIdCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Looks up the user ID of the email address, concurrent lookups of the same address wait for the first one.
+     *
+     * @param lookup asks Slack for the user ID, returns {@link #NOT_FOUND} if there's no such user
+     *               and null if Slack couldn't be asked, which isn't remembered
+     * @return the user ID, null if there's no user with the email address or it couldn't be looked up
+     */
+    public String getUserId(String token, String emailAddress, Function<String, String> lookup) {
+        CompletableFuture<String> lookingUp = new CompletableFuture<>();
+        CompletableFuture<String> cached = userIds.get(key(token, emailAddress), (key, executor) -> lookingUp);
+        if (cached == lookingUp) {
+            // a null or failed lookup removes the entry again, so it isn't remembered
+            try {
+                lookingUp.complete(lookup.apply(emailAddress));
+            } catch (RuntimeException e) {
+                lookingUp.completeExceptionally(e);
+                throw e;
+            }
+        }
+        String userId = cached.join();
+        return NOT_FOUND.equals(userId) ? null : userId;
+    }
+
+    public long getFoundCount() {
+        return userIds.synchronous().asMap().values().stream().filter(userId -> !NOT_FOUND.equals(userId)).count();
+    }
+
+    public long getNotFoundCount() {
+        return userIds.synchronous().asMap().values().stream().filter(NOT_FOUND::equals).count();
+    }
+
+    /**
+     * @return share of lookups answered from the cache since startup, in percent
+     */
+    public long getHitRatePercent() {
+        return Math.round(userIds.synchronous().stats().hitRate() * 100);
+    }
+
+    public void clear() {
+        userIds.synchronous().invalidateAll();
+    }
+
+    private static String key(String token, String emailAddress) {
+        // email addresses are case insensitive in Slack
+        return TokenDigest.of(token) + ' ' + emailAddress.toLowerCase(Locale.ROOT);
+    }
+
+    private static Duration configured(boolean found) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        SlackNotifier.DescriptorImpl descriptor = jenkins != null
+                ? jenkins.getDescriptorByType(SlackNotifier.DescriptorImpl.class) : null;
+        if (descriptor == null) {
+            return Duration.ofMinutes(found ? DEFAULT_TTL_MINUTES : DEFAULT_NOT_FOUND_TTL_MINUTES);
+        }
+        return Duration.ofMinutes(found ? descriptor.getUserIdCacheMinutes() : descriptor.getUserIdNotFoundCacheMinutes());
+    }
+}
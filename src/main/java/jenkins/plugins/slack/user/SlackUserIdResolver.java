@@ -27,20 +27,35 @@ import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractDescribableImpl;
+import hudson.model.Computer;
 import hudson.model.Run;
 import hudson.model.User;
 import hudson.scm.ChangeLogSet;
 import hudson.scm.ChangeLogSet.Entry;
-import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
+import jenkins.plugins.slack.HttpClientRegistry;
 import jenkins.scm.RunWithSCM;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
@@ -49,6 +64,9 @@ public abstract class SlackUserIdResolver extends AbstractDescribableImpl<SlackU
 
     private static final Logger LOGGER = Logger.getLogger(SlackUserIdResolver.class.getName());
 
+    static final int MAX_CONCURRENT_RESOLUTIONS = 8;
+    static final Duration RESOLUTION_DEADLINE = Duration.ofSeconds(30);
+
     protected String authToken;
     protected CloseableHttpClient httpClient;
 
@@ -58,6 +76,13 @@ public abstract class SlackUserIdResolver extends AbstractDescribableImpl<SlackU
     }
 
     public final String findOrResolveUserId(User user) {
+        return findOrResolveUserId(user, authToken);
+    }
+
+    /**
+     * @param token the token to look the user up with, rather than the one set on this resolver
+     */
+    public final String findOrResolveUserId(User user, String token) {
         String userId = null;
         SlackUserProperty userProperty = user.getProperty(SlackUserProperty.class);
         if (userProperty != null) {
@@ -67,14 +92,14 @@ public abstract class SlackUserIdResolver extends AbstractDescribableImpl<SlackU
         }
 
         if (StringUtils.isEmpty(userId)) {
-            userId = resolveUserId(user);
+            userId = SlackUserPropertyWriter.get().getPending(user);
+        }
+
+        if (StringUtils.isEmpty(userId)) {
+            userId = resolveUserId(user, token);
             if (userId != null) {
-                userProperty.setUserId(userId);
-                try {
-                    user.addProperty(userProperty);
-                } catch (IOException ex) {
-                    LOGGER.log(Level.WARNING, "Failed to add SlackUserProperty to user: " + user.toString(), ex);
-                }
+                // saving rewrites the user's config.xml, don't make the build wait for it
+                SlackUserPropertyWriter.get().save(user, userId);
             }
         }
 
@@ -84,37 +109,158 @@ public abstract class SlackUserIdResolver extends AbstractDescribableImpl<SlackU
 
     protected abstract String resolveUserId(User user);
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Resolves the user with the given token. Resolvers calling Slack should override this, the token set on the
+     * resolver is shared by all builds using it and may change while a resolution is running.
+     */
+    protected String resolveUserId(User user, String token) {
+        return resolveUserId(user);
+    }
+
     public List<String> resolveUserIdsForRun(Run run) {
+        return resolveUserIdsForRun(run, authToken);
+    }
+
+    /**
+     * Resolves the committers of the run, using the IDs resolved in advance by {@link #prefetchUserIds} if any.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> resolveUserIdsForRun(Run run, String token) {
+        List<ChangeLogSet> changeLogSets;
         if (run instanceof RunWithSCM) {
             RunWithSCM r = (RunWithSCM) run;
-            return resolveUserIdsForChangeLogSets(r.getChangeSets());
+            changeLogSets = r.getChangeSets();
         } else if (run instanceof AbstractBuild) {
             AbstractBuild build = (AbstractBuild) run;
-            return resolveUserIdsForChangeLogSets(build.getChangeSets());
+            changeLogSets = build.getChangeSets();
         } else {
             return Collections.emptyList();
         }
+
+        long deadline = System.nanoTime() + RESOLUTION_DEADLINE.toNanos();
+        Set<User> resolved = new HashSet<>();
+        Map<User, String> userIds = new HashMap<>();
+        PrefetchedUserIds prefetched = PrefetchedUserIds.get(run, token, getClass());
+        if (prefetched != null) {
+            prefetched.collect(resolved, userIds, deadline);
+        }
+        return resolveUserIdsForChangeLogSets(changeLogSets, token, resolved, userIds, deadline);
     }
 
     public List<String> resolveUserIdsForChangeLogSet(ChangeLogSet changeLogSet) {
-        return Arrays.stream(changeLogSet.getItems())
-                .map(item -> findOrResolveUserId(((Entry) item).getAuthor()))
+        return resolveUserIdsForChangeLogSets(Collections.singletonList(changeLogSet));
+    }
+
+    /**
+     * Resolves the author of each entry, every distinct author only once.
+     *
+     * @return the user ID for each entry whose author could be resolved, in order of the entries
+     */
+    public List<String> resolveUserIdsForChangeLogSets(List<ChangeLogSet> changeLogSets) {
+        return resolveUserIdsForChangeLogSets(changeLogSets, authToken, Collections.emptySet(), new HashMap<>(),
+                System.nanoTime() + RESOLUTION_DEADLINE.toNanos());
+    }
+
+    private List<String> resolveUserIdsForChangeLogSets(List<ChangeLogSet> changeLogSets, String token,
+                                                        Set<User> resolved, Map<User, String> userIds, long deadline) {
+        List<User> authors = getAuthors(changeLogSets);
+        Set<User> unresolved = new LinkedHashSet<>(authors);
+        unresolved.removeAll(resolved);
+        userIds.putAll(resolveUserIds(unresolved, token, deadline));
+        return authors.stream()
+                .map(userIds::get)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    public List<String> resolveUserIdsForChangeLogSets(List<ChangeLogSet> changeLogSets) {
+    /**
+     * Starts resolving the authors of a changelog in the background, the result is picked up by
+     * {@link #resolveUserIdsForRun} if it is called with the same token on the same kind of resolver.
+     */
+    public void prefetchUserIds(Run<?, ?> run, ChangeLogSet<?> changeLogSet, String token) {
+        Set<User> authors = new LinkedHashSet<>(getAuthors(Collections.singletonList(changeLogSet)));
+        if (authors.isEmpty()) {
+            return;
+        }
+        PrefetchedUserIds prefetched = PrefetchedUserIds.getOrAdd(run, token, getClass());
+        prefetched.add(authors, CompletableFuture.supplyAsync(
+                () -> resolveUserIds(authors, token, System.nanoTime() + RESOLUTION_DEADLINE.toNanos()), getExecutor()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<User> getAuthors(List<? extends ChangeLogSet> changeLogSets) {
         return changeLogSets.stream()
-                .map(this::resolveUserIdsForChangeLogSet)
-                .flatMap(Collection::stream)
+                .flatMap(changeLogSet -> Arrays.stream(changeLogSet.getItems()))
+                .map(item -> ((Entry) item).getAuthor())
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Resolves up to {@link #MAX_CONCURRENT_RESOLUTIONS} users at a time. Users not resolved by the deadline
+     * are left out, so a slow Slack API delays the notification by a bounded time.
+     *
+     * @param token the token to look the users up with
+     * @param deadline {@link System#nanoTime()} after which no more users are resolved
+     * @return the user ID of each user that could be resolved
+     */
+    Map<User, String> resolveUserIds(Collection<User> users, String token, long deadline) {
+        Map<User, String> userIds = new ConcurrentHashMap<>();
+        if (users.size() <= 1) {
+            users.forEach(user -> resolveInto(user, token, userIds));
+            return userIds;
+        }
+
+        List<User> pending = new ArrayList<>(users);
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(MAX_CONCURRENT_RESOLUTIONS, pending.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = CompletableFuture.runAsync(() -> {
+                int index;
+                while (System.nanoTime() - deadline < 0 && (index = next.getAndIncrement()) < pending.size()) {
+                    resolveInto(pending.get(index), token, userIds);
+                }
+            }, getExecutor());
+        }
+        try {
+            CompletableFuture.allOf(lanes).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warning(String.format("Resolved %d of %d committers before the deadline, notifying only those",
+                    userIds.size(), pending.size()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Failed to resolve committers", e.getCause());
+        }
+        // lanes still running after the deadline mustn't change the result
+        return new HashMap<>(userIds);
+    }
+
+    private void resolveInto(User user, String token, Map<User, String> userIds) {
+        try {
+            String userId = findOrResolveUserId(user, token);
+            if (userId != null) {
+                userIds.put(user, userId);
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to resolve Slack user ID of " + user, ex);
+        }
+    }
+
+    Executor getExecutor() {
+        return Computer.threadPoolForRemoting;
+    }
+
     public void setHttpClient(CloseableHttpClient httpClient) {
         this.httpClient = httpClient;
     }
 
+    /**
+     * @return the client set on this resolver, or the shared pooled client if none was set
+     */
+    protected CloseableHttpClient getHttpClient() {
+        return httpClient != null ? httpClient : HttpClientRegistry.getHttpClient();
+    }
+
     public void setAuthToken(String authToken) {
         this.authToken = authToken;
     }
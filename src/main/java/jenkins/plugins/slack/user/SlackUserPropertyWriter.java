@@ -0,0 +1,94 @@
+package jenkins.plugins.slack.user;
+
+import hudson.init.Terminator;
+import hudson.model.User;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Saves resolved Slack user IDs to the {@link SlackUserProperty} of Jenkins users in the background.
+ *
+ * Adding a property rewrites the user's {@code config.xml}, which shouldn't hold up the notification. Updates are
+ * collected for a few seconds and then written together, an update replaces any pending one for the same user.
+ * Until it is written the ID is served from memory.
+ */
+@Restricted(NoExternalUse.class)
+public final class SlackUserPropertyWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(SlackUserPropertyWriter.class.getName());
+
+    static final long FLUSH_DELAY_SECONDS = 5;
+
+    private static final SlackUserPropertyWriter INSTANCE = new SlackUserPropertyWriter(Timer::get);
+
+    private final Supplier<ScheduledExecutorService> scheduler;
+    private final Map<User, String> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    SlackUserPropertyWriter(Supplier<ScheduledExecutorService> scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    static SlackUserPropertyWriter get() {
+        return INSTANCE;
+    }
+
+    void save(User user, String userId) {
+        pending.put(user, userId);
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.get().schedule(this::flush, FLUSH_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return the user ID waiting to be saved for the user, null if there is none
+     */
+    String getPending(User user) {
+        return pending.get(user);
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    void flush() {
+        // updates arriving from now on schedule the next flush
+        flushScheduled.set(false);
+        List<Map.Entry<User, String>> batch = new ArrayList<>(pending.entrySet());
+        for (Map.Entry<User, String> update : batch) {
+            User user = update.getKey();
+            try {
+                SlackUserProperty userProperty = user.getProperty(SlackUserProperty.class);
+                if (userProperty == null) {
+                    userProperty = new SlackUserProperty();
+                }
+                userProperty.setUserId(update.getValue());
+                user.addProperty(userProperty);
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Failed to add SlackUserProperty to user: " + user, ex);
+            }
+            // keep an update that replaced this one while it was written
+            pending.remove(user, update.getValue());
+        }
+        if (!batch.isEmpty()) {
+            LOGGER.fine(() -> "Saved the Slack user ID of " + batch.size() + " users");
+        }
+    }
+
+    @Terminator
+    public static void flushOnShutdown() {
+        INSTANCE.flush();
+    }
+}
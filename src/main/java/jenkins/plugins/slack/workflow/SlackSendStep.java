@@ -432,6 +432,7 @@ public class SlackSendStep extends Step {
 
         //streamline unit testing
         SlackService getSlackService(Run run, String baseUrl, String team, boolean botUser, String channel, boolean replyBroadcast, boolean sendAsText, String iconEmoji, String username, String populatedToken, boolean notifyCommitters, SlackUserIdResolver userIdResolver) {
+            SlackNotifier.DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(SlackNotifier.DescriptorImpl.class);
             return new StandardSlackService(
                     new StandardSlackServiceBuilder()
                         .withRun(run)
@@ -445,6 +446,7 @@ public class SlackSendStep extends Step {
                         .withPopulatedToken(populatedToken)
                         .withNotifyCommitters(notifyCommitters)
                         .withSlackUserIdResolver(userIdResolver)
+                        .withMaxConcurrentPosts(descriptor.getMaxConcurrentPosts())
                     );
         }
     }
@@ -0,0 +1,57 @@
+package jenkins.plugins.slack;
+
+import hudson.ProxyConfiguration;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HttpClientRegistryTest {
+
+    @AfterEach
+    void tearDown() {
+        HttpClientRegistry.clear();
+    }
+
+    @Test
+    void sameProxyConfigurationSharesClient() {
+        assertSame(HttpClientRegistry.getHttpClient(null), HttpClientRegistry.getHttpClient(null));
+        assertSame(
+                HttpClientRegistry.getHttpClient(new ProxyConfiguration("proxy.example.com", 3128)),
+                HttpClientRegistry.getHttpClient(new ProxyConfiguration("proxy.example.com", 3128))
+        );
+        assertEquals(2, HttpClientRegistry.size());
+    }
+
+    @Test
+    void changedProxyConfigurationGetsNewClient() {
+        assertNotSame(
+                HttpClientRegistry.getHttpClient(new ProxyConfiguration("proxy.example.com", 3128)),
+                HttpClientRegistry.getHttpClient(new ProxyConfiguration("proxy.example.com", 8080))
+        );
+        assertEquals(2, HttpClientRegistry.size());
+    }
+
+    @Test
+    void heldClientIsNotClosed() {
+        CloseableHttpClient client = HttpClientRegistry.getHttpClient(null);
+
+        HttpClientRegistry.closeUnused(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+
+        assertEquals(1, HttpClientRegistry.size());
+        assertSame(client, HttpClientRegistry.getHttpClient(null));
+    }
+
+    @Test
+    void newClientIsNotClosed() {
+        HttpClientRegistry.getHttpClient(null);
+
+        HttpClientRegistry.closeUnused(System.currentTimeMillis());
+
+        assertEquals(1, HttpClientRegistry.size());
+    }
+}
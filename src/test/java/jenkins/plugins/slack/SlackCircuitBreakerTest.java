@@ -0,0 +1,73 @@
+package jenkins.plugins.slack;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackCircuitBreakerTest {
+
+    private static final String KEY = SlackCircuitBreaker.key("https://slack.com/api/", "token");
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreakerSettings settings = settings(3);
+    private final SlackCircuitBreaker circuitBreaker = new SlackCircuitBreaker(now::get, () -> settings);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(2);
+        circuitBreaker.succeeded(KEY);
+        fail(2);
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+
+        fail(1);
+        assertFalse(circuitBreaker.tryAcquire(KEY));
+        assertEquals(1, circuitBreaker.getOpenCircuits());
+        assertTrue(circuitBreaker.tryAcquire(SlackCircuitBreaker.key("https://slack.com/api/", "other-token")));
+    }
+
+    @Test
+    void letsOneCallThroughAfterCoolDown() {
+        fail(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+        assertFalse(circuitBreaker.tryAcquire(KEY));
+
+        circuitBreaker.succeeded(KEY);
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+        assertEquals(0, circuitBreaker.getOpenCircuits());
+    }
+
+    @Test
+    void failedProbeOpensCircuitAgain() {
+        fail(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+
+        circuitBreaker.failed(KEY);
+        assertFalse(circuitBreaker.tryAcquire(KEY));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+    }
+
+    @Test
+    void thresholdOfZeroDisablesCircuitBreaker() {
+        settings = settings(0);
+        fail(10);
+        assertTrue(circuitBreaker.tryAcquire(KEY));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.failed(KEY);
+        }
+    }
+
+    private static CircuitBreakerSettings settings(int threshold) {
+        return new CircuitBreakerSettings(threshold, 10);
+    }
+}
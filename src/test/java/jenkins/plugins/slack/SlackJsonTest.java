@@ -0,0 +1,74 @@
+package jenkins.plugins.slack;
+
+import java.nio.charset.StandardCharsets;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackJsonTest {
+
+    @Test
+    void encodesLikeToString() {
+        JSONObject text = new JSONObject();
+        text.put("type", "mrkdwn");
+        text.put("text", "*Build* \"#42\" \u2714 <https://ci.example.com|open>\n");
+        JSONObject block = new JSONObject();
+        block.put("type", "section");
+        block.put("text", text);
+        JSONArray blocks = new JSONArray();
+        blocks.add(block);
+        JSONObject json = new JSONObject();
+        json.put("channel", "#general");
+        json.put("blocks", blocks);
+        json.put("as_user", "true");
+        json.put("unfurl_links", true);
+        json.put("count", 3);
+        json.put("ratio", 0.5);
+        json.put("thread_ts", JSONNull.getInstance());
+
+        String encoded = new String(SlackJson.encode(json), StandardCharsets.UTF_8);
+
+        assertEquals(json, JSONObject.fromObject(encoded));
+    }
+
+    @Test
+    void readsResultFieldsFromResponse() {
+        String response = "{\"ok\":true,\"channel\":\"C123\",\"ts\":\"1503435956.000247\","
+                + "\"message\":{\"text\":\"hello\",\"blocks\":[{\"type\":\"section\",\"ts\":\"ignored\"}]}}";
+
+        SlackResult result = SlackResult.fromResponseBody(true, 200, response.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(result.isOk());
+        assertEquals("C123", result.getChannel());
+        assertEquals("1503435956.000247", result.getTs());
+        assertNull(result.getError());
+        assertEquals(response, result.getResponseString());
+    }
+
+    @Test
+    void readsErrorFromResponse() {
+        SlackResult result = SlackResult.fromResponse(true, 200, "{\"ok\":false,\"error\":\"channel_not_found\"}");
+
+        assertFalse(result.isOk());
+        assertEquals("channel_not_found", result.getError());
+    }
+
+    @Test
+    void invalidResponseIsNotOk() {
+        assertEquals("invalid_json", SlackResult.fromResponse(true, 200, "ok").getError());
+        assertEquals("invalid_json", SlackResult.fromResponse(true, 200, "{\"ok\":true").getError());
+        assertEquals("invalid_json", SlackResult.fromResponse(true, 200, "{\"channel\":\"C123\"}").getError());
+    }
+
+    @Test
+    void webhookResponseOnlyNeedsStatus() {
+        assertTrue(SlackResult.fromResponse(false, 200, "ok").isOk());
+        assertFalse(SlackResult.fromResponse(false, 404, "no_team").isOk());
+    }
+}
@@ -0,0 +1,119 @@
+package jenkins.plugins.slack;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackMessageCoalescerTest {
+
+    private static final long WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final List<JSONObject> sent = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private SlackMessageCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        coalescer = new SlackMessageCoalescer(() -> scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void firstMessageIsSentRightAwayAndFollowingOnesAreMerged() throws InterruptedException {
+        CompletableFuture<SlackResult> first = submit("room", message("build 1", "good"));
+        assertTrue(first.isDone());
+        assertEquals(1, sent.size());
+
+        CompletableFuture<SlackResult> second = submit("room", message("build 2", "good"));
+        CompletableFuture<SlackResult> third = submit("room", message("build 3", "danger"));
+        // the callers don't wait for the window to close
+        assertTrue(second.join().isOk());
+        assertTrue(third.join().isOk());
+        assertEquals(1, sent.size());
+
+        awaitSent(2);
+        JSONObject merged = sent.get(1);
+        assertEquals("build 2\nbuild 3", merged.getString("text"));
+        assertEquals(2, merged.getJSONArray("attachments").size());
+        assertEquals("danger", merged.getJSONArray("attachments").getJSONObject(1).getString("color"));
+    }
+
+    @Test
+    void channelsAreCoalescedSeparately() {
+        submit("room1", message("build 1", "good"));
+        CompletableFuture<SlackResult> other = submit("room2", message("build 2", "good"));
+
+        assertTrue(other.isDone());
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void batchIsSentEarlyWhenLimitIsReached() {
+        long window = TimeUnit.MINUTES.toMillis(1);
+        submit("room", message("build 1", "good"), window);
+        for (int i = 0; i < SlackMessageCoalescer.MAX_ATTACHMENTS + 1; i++) {
+            submit("room", message("build", "good"), window);
+        }
+
+        // the first post and the full batch, the last message waits for the window
+        assertEquals(2, sent.size());
+        assertEquals(SlackMessageCoalescer.MAX_ATTACHMENTS, sent.get(1).getJSONArray("attachments").size());
+    }
+
+    @Test
+    void windowClosesWhenNothingIsPending() throws InterruptedException {
+        submit("room", message("build 1", "good"), 100);
+        assertEquals(1, coalescer.getOpenWindows());
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(0, coalescer.getOpenWindows());
+    }
+
+    private void awaitSent(int messages) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sent.size() < messages && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(messages, sent.size());
+    }
+
+    private CompletableFuture<SlackResult> submit(String key, JSONObject body) {
+        return submit(key, body, WINDOW_MILLIS);
+    }
+
+    private CompletableFuture<SlackResult> submit(String key, JSONObject body, long windowMillis) {
+        return coalescer.submit(key, body, windowMillis, payload -> {
+            sent.add(payload);
+            return CompletableFuture.completedFuture(SlackResult.of(true, null));
+        });
+    }
+
+    private static JSONObject message(String text, String color) {
+        JSONObject attachment = new JSONObject();
+        attachment.put("color", color);
+        attachment.put("text", text);
+        JSONArray attachments = new JSONArray();
+        attachments.add(attachment);
+        JSONObject body = new JSONObject();
+        body.put("channel", "#general");
+        body.put("text", text);
+        body.put("attachments", attachments);
+        return body;
+    }
+}
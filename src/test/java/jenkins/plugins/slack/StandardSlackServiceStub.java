@@ -1,10 +1,24 @@
 package jenkins.plugins.slack;
 
+import java.util.concurrent.CompletableFuture;
+import jenkins.plugins.slack.ratelimit.SlackRateLimiter;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClientStub;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 
 public class StandardSlackServiceStub extends StandardSlackService {
 
     private CloseableHttpClientStub httpClientStub;
+    // tests shouldn't share rate limits with each other
+    private final SlackRateLimiter rateLimiter = new SlackRateLimiter();
+    private final SlackCircuitBreaker circuitBreaker = new SlackCircuitBreaker(System::nanoTime, () -> CircuitBreakerSettings.DEFAULT);
 
     public StandardSlackServiceStub(StandardSlackServiceBuilder standardSlackServiceBuilder) {
         super(standardSlackServiceBuilder);
@@ -18,4 +32,40 @@ public class StandardSlackServiceStub extends StandardSlackService {
     public void setHttpClient(CloseableHttpClientStub httpClientStub) {
         this.httpClientStub = httpClientStub;
     }
+
+    @Override
+    protected SlackRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    protected SlackCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Routes asynchronous requests through the classic client stub so tests can keep inspecting it.
+     */
+    @Override
+    protected CompletableFuture<SimpleHttpResponse> execute(SimpleHttpRequest request) {
+        try {
+            HttpPost post = new HttpPost(request.getUri());
+            for (Header header : request.getHeaders()) {
+                post.addHeader(header);
+            }
+            if (request.getBody() != null) {
+                post.setEntity(new ByteArrayEntity(request.getBodyBytes(), request.getContentType()));
+            }
+            try (CloseableHttpResponse response = httpClientStub.execute(post)) {
+                SimpleHttpResponse simpleResponse = new SimpleHttpResponse(response.getCode());
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    simpleResponse.setBody(EntityUtils.toByteArray(entity), ContentType.parse(entity.getContentType()));
+                }
+                return CompletableFuture.completedFuture(simpleResponse);
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
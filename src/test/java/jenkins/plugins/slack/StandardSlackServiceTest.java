@@ -1,12 +1,27 @@
 package jenkins.plugins.slack;
 
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.plugins.slack.pipeline.SlackFileRequest;
+import jenkins.plugins.slack.pipeline.SlackUploadResult;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClientStub;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponseStub;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class StandardSlackServiceTest {
     /**
@@ -319,4 +334,82 @@ class StandardSlackServiceTest {
         assertTrue(service.removeReaction("#my-room", "12345", "thumbup"));
     }
 
+    @Test
+    void publishAsyncCompletesWithChannelAndTimestamp() {
+        StandardSlackServiceStub service = new StandardSlackServiceStub(
+                StandardSlackService.builder()
+                        .withBaseUrl("")
+                        .withTeamDomain("domain")
+                        .withBotUser(true)
+                        .withRoomId("#room1")
+                        .withPopulatedToken("token"));
+        CloseableHttpResponseStub response = new CloseableHttpResponseStub(HttpStatus.SC_OK);
+        response.setEntity(new StringEntity("{\"ok\":true,\"channel\":\"C123\",\"ts\":\"1503435956.000247\"}", ContentType.APPLICATION_JSON));
+        CloseableHttpClientStub httpClientStub = new CloseableHttpClientStub();
+        httpClientStub.setHttpResponse(response.toCloseableHttpResponse());
+        service.setHttpClient(httpClientStub);
+
+        SlackResult result = service.publishAsync(SlackRequest.builder().withMessage("message").build()).join();
+
+        assertTrue(result.isOk());
+        assertEquals("C123", result.getChannel());
+        assertEquals("1503435956.000247", result.getTs());
+    }
+
+    @Test
+    void publishAsyncReportsResultPerRoom() {
+        StandardSlackServiceStub service = new StandardSlackServiceStub(
+                StandardSlackService.builder()
+                        .withBaseUrl("")
+                        .withTeamDomain("domain")
+                        .withBotUser(false)
+                        .withRoomId("#room1,#room2,#room3")
+                        .withPopulatedToken("token")
+                        .withMaxConcurrentPosts(2));
+        CloseableHttpClientStub httpClientStub = new CloseableHttpClientStub();
+        httpClientStub.setHttpStatus(HttpStatus.SC_OK);
+        httpClientStub.setFailAlternateResponses(true);
+        service.setHttpClient(httpClientStub);
+
+        SlackResult result = service.publishAsync(SlackRequest.builder().withMessage("message").build()).join();
+
+        assertFalse(result.isOk());
+        assertEquals(3, result.getRoomResults().size());
+        assertEquals("#room1", result.getRoomResults().get(0).getRoom());
+        assertTrue(result.getRoomResults().get(0).isOk());
+        assertEquals("#room2", result.getRoomResults().get(1).getRoom());
+        assertFalse(result.getRoomResults().get(1).isOk());
+        assertTrue(result.getRoomResults().get(2).isOk());
+    }
+
+    @Test
+    void uploadSkipsUnknownRoomAndSharesWithTheOthers() {
+        List<SlackFileRequest> requests = new ArrayList<>();
+        StandardSlackService service = new StandardSlackService(
+                StandardSlackService.builder()
+                        .withBotUser(true)
+                        .withRoomId("general,no-such-room,U0123ABCDE")
+                        .withPopulatedToken("token")) {
+            @Override
+            protected String getChannelId(String roomId) {
+                return "general".equals(roomId) ? "C01234567" : null;
+            }
+
+            @Override
+            protected SlackUploadResult uploadFiles(FilePath workspace, SlackFileRequest slackFileRequest, TaskListener log) {
+                requests.add(slackFileRequest);
+                SlackUploadResult result = mock(SlackUploadResult.class);
+                when(result.isOk()).thenReturn(true);
+                return result;
+            }
+        };
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        boolean uploaded = service.upload(new FilePath(new File(".")), "*.txt", new StreamTaskListener(log, StandardCharsets.UTF_8));
+
+        assertFalse(uploaded, "the unknown room didn't get the files");
+        assertEquals(1, requests.size());
+        assertEquals("C01234567,U0123ABCDE", requests.get(0).getChannelId());
+        assertTrue(log.toString(StandardCharsets.UTF_8).contains("no-such-room"), log.toString(StandardCharsets.UTF_8));
+    }
 }
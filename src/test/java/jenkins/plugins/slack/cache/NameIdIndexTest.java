@@ -0,0 +1,125 @@
+package jenkins.plugins.slack.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameIdIndexTest {
+
+    @Test
+    void findsEveryChannel() {
+        Map<String, String> channels = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            channels.put("channel-" + i, String.format("C%08d", i));
+        }
+        channels.put("private", "G0123456789");
+        channels.put("\u00e9quipe", "C12345678");
+
+        NameIdIndex index = NameIdIndex.of(channels);
+
+        assertEquals(channels.size(), index.size());
+        channels.forEach((name, id) -> assertEquals(id, index.get(name)));
+    }
+
+    @Test
+    void unknownChannelIsNotFound() {
+        NameIdIndex index = NameIdIndex.of(Map.of("general", "C01234567", "random", "C76543210"));
+
+        assertNull(index.get("typo"));
+        assertNull(index.get("gen"));
+        assertNull(index.get("generals"));
+        assertNull(index.get(""));
+        assertNull(NameIdIndex.of(Map.of()).get("general"));
+    }
+
+    @Test
+    void appliesChannelChanges() {
+        NameIdIndex index = NameIdIndex.of(Map.of("general", "C01234567", "random", "C76543210"));
+
+        NameIdIndex created = index.with("builds", "C0123456789");
+        assertEquals("C0123456789", created.get("builds"));
+        assertEquals("C01234567", created.get("general"));
+        assertNull(index.get("builds"));
+
+        NameIdIndex renamed = created.with("announcements", "C01234567");
+        assertEquals("C01234567", renamed.get("announcements"));
+        assertNull(renamed.get("general"));
+        assertEquals(3, renamed.size());
+
+        NameIdIndex removed = renamed.without("C76543210");
+        assertNull(removed.get("random"));
+        assertFalse(removed.containsId("C76543210"));
+        assertTrue(removed.containsId("C0123456789"));
+        assertEquals(Map.of("announcements", "C01234567", "builds", "C0123456789"), removed.toMap());
+    }
+
+    @Test
+    void editsMatchMapUpdates() {
+        Map<String, String> channels = new HashMap<>();
+        NameIdIndex index = NameIdIndex.of(channels);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String name = "channel-" + random.nextInt(100);
+            String id = "C" + random.nextInt(150);
+            if (random.nextInt(4) == 0) {
+                channels.values().removeIf(id::equals);
+                index = index.without(id);
+            } else {
+                channels.values().removeIf(id::equals);
+                channels.put(name, id);
+                index = index.with(name, id);
+            }
+            assertEquals(channels, index.toMap());
+        }
+    }
+
+    @Test
+    void idsAreComparedExactly() {
+        NameIdIndex index = NameIdIndex.of(Map.of("general", "C0123", "random", "C0123456789"));
+
+        assertTrue(index.containsId("C0123"));
+        assertTrue(index.containsId("C0123456789"));
+        assertFalse(index.containsId("C012"));
+        assertFalse(index.containsId("C012345"));
+        assertFalse(index.containsId("C01234567890"));
+        assertSame(index, index.with("general", "C0123"));
+        assertSame(index, index.without("C999"));
+    }
+
+    @Test
+    void findsEveryId() {
+        Map<String, String> users = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            users.put("user" + i + "@example.com", "U" + random.nextInt(1_000_000));
+        }
+
+        NameIdIndex index = NameIdIndex.of(users);
+
+        for (String id : users.values()) {
+            assertTrue(index.containsId(id), id);
+        }
+        assertFalse(index.containsId("U1000000"));
+        assertFalse(index.containsId("W0"));
+    }
+
+    @Test
+    void takesLessMemoryThanMap() {
+        Map<String, String> channels = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            channels.put("team-project-" + i, String.format("C%010d", i));
+        }
+
+        NameIdIndex index = NameIdIndex.of(channels);
+
+        assertTrue(index.getMemoryFootprint() * 3 < index.getMapMemoryFootprint(),
+                index.getMemoryFootprint() + " vs " + index.getMapMemoryFootprint());
+    }
+}
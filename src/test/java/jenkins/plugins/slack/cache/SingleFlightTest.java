@@ -0,0 +1,55 @@
+package jenkins.plugins.slack.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger started = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneComputation() {
+        CompletableFuture<String> computation = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.run("token", key -> start(computation));
+        CompletableFuture<String> second = singleFlight.run("token", key -> start(computation));
+
+        assertSame(first, second);
+        assertEquals(1, started.get());
+        assertTrue(singleFlight.isInFlight("token"));
+
+        computation.complete("channels");
+        assertEquals("channels", second.join());
+        assertFalse(singleFlight.isInFlight("token"));
+    }
+
+    @Test
+    void nextCallAfterCompletionStartsAgain() {
+        singleFlight.run("token", key -> start(CompletableFuture.completedFuture("old"))).join();
+
+        assertEquals("new", singleFlight.run("token", key -> start(CompletableFuture.completedFuture("new"))).join());
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    void failureIsPassedOnAndNotKept() {
+        CompletableFuture<String> failed = singleFlight.run("token", key -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertFalse(singleFlight.isInFlight("token"));
+    }
+
+    private CompletableFuture<String> start(CompletableFuture<String> computation) {
+        started.incrementAndGet();
+        return computation;
+    }
+}
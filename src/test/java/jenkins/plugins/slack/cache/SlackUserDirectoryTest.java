@@ -0,0 +1,108 @@
+package jenkins.plugins.slack.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SlackUserDirectoryTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private Map<String, String> users = Map.of("spengler@ghostbusters.example.com", "W012A3CDE");
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("slack-user-directory").toFile();
+    }
+
+    @Test
+    void readsActiveUsersWithEmailAddress() throws IOException {
+        JSONObject page = new JSONObject("{\"ok\":true,\"members\":["
+                + "{\"id\":\"W012A3CDE\",\"profile\":{\"email\":\"Spengler@Ghostbusters.example.com\"}},"
+                + "{\"id\":\"W07QCRPA4\",\"deleted\":true,\"profile\":{\"email\":\"gone@ghostbusters.example.com\"}},"
+                + "{\"id\":\"B0123ABCD\",\"is_bot\":true,\"profile\":{\"email\":\"bot@ghostbusters.example.com\"}},"
+                + "{\"id\":\"W0NOEMAIL\",\"profile\":{}}],"
+                + "\"response_metadata\":{\"next_cursor\":\"dXNlcjpVMEc5V0ZYTlo=\"}}");
+        Map<String, String> read = new HashMap<>();
+
+        String cursor = SlackUserDirectory.readUsers(page, read);
+
+        assertEquals(Map.of("spengler@ghostbusters.example.com", "W012A3CDE"), read);
+        assertEquals("dXNlcjpVMEc5V0ZYTlo=", cursor);
+        assertEquals("", SlackUserDirectory.readUsers(new JSONObject("{\"ok\":true,\"members\":[]}"), read));
+        assertThrows(IOException.class, () -> SlackUserDirectory.readUsers(
+                new JSONObject("{\"ok\":false,\"error\":\"missing_scope\"}"), read));
+    }
+
+    @Test
+    void firstLookupFetchesDirectoryInBackground() {
+        SlackUserDirectory userDirectory = newDirectory();
+
+        // the fetch runs right away here, in Jenkins lookups don't wait for it
+        userDirectory.getUserId("token", "spengler@ghostbusters.example.com");
+        assertEquals("W012A3CDE", userDirectory.getUserId("token", "SPENGLER@ghostbusters.example.com"));
+        assertNull(userDirectory.getUserId("token", "venkman@ghostbusters.example.com"));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void directoryIsRefreshedWhenOld() {
+        SlackUserDirectory userDirectory = newDirectory();
+        userDirectory.getUserId("token", "spengler@ghostbusters.example.com");
+
+        users = Map.of("venkman@ghostbusters.example.com", "W0VENKMAN");
+        now.addAndGet(SlackUserDirectory.REFRESH_INTERVAL.toNanos());
+        userDirectory.getUserId("token", "venkman@ghostbusters.example.com");
+
+        assertEquals("W0VENKMAN", userDirectory.getUserId("token", "venkman@ghostbusters.example.com"));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void failedFetchIsRetriedLater() {
+        SlackUserDirectory userDirectory = new SlackUserDirectory(now::get, token -> {
+            fetches.incrementAndGet();
+            throw new IOException("missing_scope");
+        }, Runnable::run, () -> new NameIdSnapshots(directory, "test"));
+
+        assertNull(userDirectory.getUserId("token", "spengler@ghostbusters.example.com"));
+        assertNull(userDirectory.getUserId("token", "spengler@ghostbusters.example.com"));
+        assertEquals(1, fetches.get());
+
+        now.addAndGet(SlackUserDirectory.RETRY_INTERVAL.toNanos());
+        userDirectory.getUserId("token", "spengler@ghostbusters.example.com");
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void savedDirectoryIsUsedAfterRestart() {
+        newDirectory().getUserId("token", "spengler@ghostbusters.example.com");
+
+        users = Map.of();
+        SlackUserDirectory restarted = new SlackUserDirectory(now::get, token -> {
+            fetches.incrementAndGet();
+            return users;
+        }, command -> { }, () -> new NameIdSnapshots(directory, "test"));
+
+        assertEquals("W012A3CDE", restarted.getUserId("token", "spengler@ghostbusters.example.com"));
+    }
+
+    private SlackUserDirectory newDirectory() {
+        return new SlackUserDirectory(now::get, token -> {
+            fetches.incrementAndGet();
+            return users;
+        }, Runnable::run, () -> new NameIdSnapshots(directory, "test"));
+    }
+}
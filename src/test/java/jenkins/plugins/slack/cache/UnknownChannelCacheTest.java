@@ -0,0 +1,46 @@
+package jenkins.plugins.slack.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnknownChannelCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final UnknownChannelCache cache = new UnknownChannelCache(now::get);
+
+    @Test
+    void unknownChannelIsRememberedUntilItExpires() {
+        cache.unknown("token", "typo");
+
+        assertTrue(cache.isUnknown("token", "typo"));
+        assertFalse(cache.isUnknown("other-token", "typo"));
+
+        now.addAndGet(UnknownChannelCache.UNKNOWN_CHANNEL_TTL.toNanos());
+        assertFalse(cache.isUnknown("token", "typo"));
+    }
+
+    @Test
+    void refreshIsAllowedOncePerInterval() {
+        assertTrue(cache.tryRefresh("token"));
+        assertFalse(cache.tryRefresh("token"));
+        assertTrue(cache.tryRefresh("other-token"));
+
+        now.addAndGet(UnknownChannelCache.MIN_REFRESH_INTERVAL.toNanos());
+        assertTrue(cache.tryRefresh("token"));
+    }
+
+    @Test
+    void refreshForgetsUnknownChannelsOfTheWorkspace() {
+        cache.unknown("token", "new-channel");
+        cache.unknown("other-token", "new-channel");
+
+        cache.refreshed("token");
+
+        assertFalse(cache.isUnknown("token", "new-channel"));
+        assertTrue(cache.isUnknown("other-token", "new-channel"));
+        assertFalse(cache.tryRefresh("token"));
+    }
+}
@@ -0,0 +1,57 @@
+package jenkins.plugins.slack.events;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackRequestVerifierTest {
+
+    // example from https://api.slack.com/authentication/verifying-requests-from-slack
+    private static final String SECRET = "8f742231b10e8888abcd99yyyzzz85a5";
+    private static final String TIMESTAMP = "1531420618";
+    private static final byte[] BODY = ("token=xyzz0WbapA4vBCDEFasx0q6G&team_id=T1DC2JH3J&team_domain=testteamnow"
+            + "&channel_id=G8PSS9T3V&channel_name=foobar&user_id=U2CERLKJA&user_name=roadrunner&command=%2Fwebhook-collect"
+            + "&text=&response_url=https%3A%2F%2Fhooks.slack.com%2Fcommands%2FT1DC2JH3J%2F397700885554%2F96rGlfmibIGlgcZRskXaIFfN"
+            + "&trigger_id=398738663015.47445629121.803a0bc887a14d10d2c447fce8b6703c").getBytes(StandardCharsets.UTF_8);
+    private static final String SIGNATURE = "v0=a2114d57b48eac39b9ad189dd8316235a7b4a8d21a10bd27519666489c69b503";
+
+    private final SlackRequestVerifier verifier = new SlackRequestVerifier(SECRET);
+
+    @Test
+    void signsLikeSlack() {
+        assertEquals(SIGNATURE, verifier.sign(TIMESTAMP, BODY));
+    }
+
+    @Test
+    void acceptsSignedRequest() {
+        assertTrue(verifier.verify(TIMESTAMP, SIGNATURE, BODY, 1531420618L + 60));
+    }
+
+    @Test
+    void rejectsTamperedBody() {
+        byte[] body = BODY.clone();
+        body[0] = 'T';
+        assertFalse(verifier.verify(TIMESTAMP, SIGNATURE, body, 1531420618L));
+    }
+
+    @Test
+    void rejectsOtherSecret() {
+        assertFalse(new SlackRequestVerifier("other").verify(TIMESTAMP, SIGNATURE, BODY, 1531420618L));
+    }
+
+    @Test
+    void rejectsOldRequest() {
+        long tooLate = 1531420618L + SlackRequestVerifier.MAX_AGE.toSeconds() + 1;
+        assertFalse(verifier.verify(TIMESTAMP, SIGNATURE, BODY, tooLate));
+    }
+
+    @Test
+    void rejectsMissingHeaders() {
+        assertFalse(verifier.verify(null, SIGNATURE, BODY, 1531420618L));
+        assertFalse(verifier.verify(TIMESTAMP, null, BODY, 1531420618L));
+        assertFalse(verifier.verify("yesterday", SIGNATURE, BODY, 1531420618L));
+    }
+}
@@ -0,0 +1,247 @@
+package jenkins.plugins.slack.outbox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.plugins.slack.SlackRequest;
+import jenkins.plugins.slack.SlackResult;
+import jenkins.plugins.slack.user.NoSlackUserIdResolver;
+import jenkins.plugins.slack.user.SlackUserIdResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class SlackOutboxTest {
+
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("slack-outbox").toFile();
+    }
+
+    @Test
+    void appendedEntryIsDelivered(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(SlackResult.of(true, null));
+        }, Runnable::run);
+
+        outbox.append(entry());
+        assertEquals(1, outbox.getEntries().size());
+
+        outbox.deliver(System.currentTimeMillis());
+
+        assertEquals(1, sent.get());
+        assertTrue(outbox.getEntries().isEmpty());
+        assertEquals(0, directory.list((dir, name) -> name.endsWith(".xml")).length);
+    }
+
+    @Test
+    void retryableFailureStaysQueued(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(SlackResult.failure("Connection refused"));
+        }, Runnable::run);
+        outbox.append(entry());
+
+        long now = System.currentTimeMillis();
+        outbox.deliver(now);
+
+        List<OutboxEntry> entries = outbox.getEntries();
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).getAttempts());
+        assertEquals(now + SlackOutbox.INITIAL_BACKOFF_MILLIS, entries.get(0).getNextAttempt());
+
+        outbox.deliver(now + 1000);
+        assertEquals(1, sent.get(), "not due yet");
+
+        outbox.deliver(now + SlackOutbox.INITIAL_BACKOFF_MILLIS);
+        assertEquals(2, sent.get());
+        assertEquals(2, outbox.getEntries().get(0).getAttempts());
+    }
+
+    @Test
+    void resolverIsKeptForRetries(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        SlackUserIdResolver resolver = new NoSlackUserIdResolver();
+        List<SlackUserIdResolver> used = new CopyOnWriteArrayList<>();
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> {
+            used.add(entry.getUserIdResolver());
+            return CompletableFuture.completedFuture(SlackResult.failure("Connection refused"));
+        }, Runnable::run);
+        outbox.append(new OutboxEntry("https://slack.com/api/", "team", true, "#general", false, null, null, "token", 1,
+                SlackRequest.builder().withMessage("hello").build(), null, resolver));
+
+        long now = System.currentTimeMillis();
+        outbox.deliver(now);
+        outbox.deliver(now + SlackOutbox.INITIAL_BACKOFF_MILLIS);
+
+        assertEquals(2, used.size());
+        assertSame(resolver, used.get(0));
+        assertSame(resolver, used.get(1));
+    }
+
+    @Test
+    void permanentFailureIsMovedAside(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> CompletableFuture.completedFuture(
+                SlackResult.fromResponse(true, 200, "{\"ok\":false,\"error\":\"channel_not_found\"}")), Runnable::run);
+        outbox.append(entry());
+
+        outbox.deliver(System.currentTimeMillis());
+
+        assertTrue(outbox.getEntries().isEmpty());
+        assertEquals(1, new File(directory, SlackOutbox.FAILED_DIRECTORY).list().length);
+    }
+
+    @Test
+    void entriesAreLoadedAgainAfterRestart(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        OutboxEntry appended = entry();
+        new SlackOutbox(directory, entry -> new CompletableFuture<>(), Runnable::run).append(appended);
+
+        AtomicInteger sent = new AtomicInteger();
+        SlackOutbox restarted = new SlackOutbox(directory, entry -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture(SlackResult.of(true, null));
+        }, Runnable::run);
+
+        List<OutboxEntry> entries = restarted.getEntries();
+        assertEquals(1, entries.size());
+        assertEquals(appended.getId(), entries.get(0).getId());
+
+        restarted.deliver(System.currentTimeMillis());
+
+        assertEquals(1, sent.get());
+        assertTrue(restarted.getEntries().isEmpty());
+    }
+
+    @Test
+    void entryIsUpdatedOnTheExecutor(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        AtomicInteger updates = new AtomicInteger();
+        SlackOutbox outbox = new SlackOutbox(directory,
+                entry -> CompletableFuture.supplyAsync(() -> SlackResult.of(true, null)),
+                command -> {
+                    updates.incrementAndGet();
+                    command.run();
+                });
+        outbox.append(entry());
+
+        outbox.deliver(System.currentTimeMillis());
+
+        assertEquals(1, updates.get());
+        assertTrue(outbox.getEntries().isEmpty());
+    }
+
+    @Test
+    void entriesForOneChannelAreDeliveredInOrder(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<SlackResult>> results = new CopyOnWriteArrayList<>();
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> {
+            sent.add(entry.toRequest().getMessage() + " to " + entry.getRoomId());
+            CompletableFuture<SlackResult> result = new CompletableFuture<>();
+            results.add(result);
+            return result;
+        }, Runnable::run);
+        outbox.append(entry("#general", "started"));
+        outbox.append(entry("#general", "success"));
+        outbox.append(entry("#other", "started"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> delivery = executor.submit(() -> outbox.deliver(System.currentTimeMillis()));
+            awaitSize(results, 2);
+            // the other channel doesn't wait, the second message for #general does
+            assertEquals(List.of("started to #general", "started to #other"), sent);
+
+            results.get(0).complete(SlackResult.of(true, null));
+            awaitSize(results, 3);
+            assertEquals("success to #general", sent.get(2));
+
+            results.forEach(result -> result.complete(SlackResult.of(true, null)));
+            delivery.get(10, TimeUnit.SECONDS);
+        } finally {
+            // lets a delivery still waiting for a post finish
+            results.forEach(result -> result.complete(SlackResult.failure("test ended")));
+            executor.shutdownNow();
+        }
+        assertTrue(outbox.getEntries().isEmpty());
+    }
+
+    @Test
+    void laterEntriesWaitForFailedOnes(@SuppressWarnings("unused") JenkinsRule j) throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        SlackOutbox outbox = new SlackOutbox(directory, entry -> {
+            sent.add(entry.toRequest().getMessage());
+            return CompletableFuture.completedFuture("started".equals(entry.toRequest().getMessage())
+                    ? SlackResult.failure("Connection refused") : SlackResult.of(true, null));
+        }, Runnable::run);
+        outbox.append(entry("#general", "started"));
+        outbox.append(entry("#general", "success"));
+
+        long now = System.currentTimeMillis();
+        outbox.deliver(now);
+        assertEquals(List.of("started"), sent);
+
+        // not due yet, so the message after it waits as well
+        outbox.deliver(now + 1000);
+        assertEquals(List.of("started"), sent);
+        assertEquals(2, outbox.getEntries().size());
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // give a delivery that shouldn't start a moment to show up
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(size, list.size());
+    }
+
+    private static OutboxEntry entry() {
+        return entry("#general", "hello");
+    }
+
+    private static OutboxEntry entry(String roomId, String message) {
+        return new OutboxEntry("https://slack.com/api/", "team", true, roomId, false, null, null, "token", 1,
+                SlackRequest.builder().withMessage(message).build());
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        assertEquals(TimeUnit.SECONDS.toMillis(30), SlackOutbox.backoff(1));
+        assertEquals(TimeUnit.SECONDS.toMillis(60), SlackOutbox.backoff(2));
+        assertEquals(TimeUnit.MINUTES.toMillis(4), SlackOutbox.backoff(4));
+        assertEquals(TimeUnit.HOURS.toMillis(1), SlackOutbox.backoff(8));
+        assertEquals(TimeUnit.HOURS.toMillis(1), SlackOutbox.backoff(100));
+    }
+
+    @Test
+    void transientErrorsAreRetried() {
+        assertTrue(SlackOutbox.isRetryable(SlackResult.failure("Connection refused")));
+        assertTrue(SlackOutbox.isRetryable(SlackResult.fromResponse(true, 429, null)));
+        assertTrue(SlackOutbox.isRetryable(SlackResult.fromResponse(true, 503, null)));
+    }
+
+    @Test
+    void permanentErrorsAreNotRetried() {
+        assertFalse(SlackOutbox.isRetryable(SlackResult.fromResponse(true, 200, "{\"ok\":false,\"error\":\"channel_not_found\"}")));
+        assertFalse(SlackOutbox.isRetryable(SlackResult.fromResponse(false, 404, "no_team")));
+    }
+}
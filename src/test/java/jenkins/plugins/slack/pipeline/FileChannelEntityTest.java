@@ -0,0 +1,98 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileChannelEntityTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void sendsFileAsIs() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+        File file = new File(directory, "report.zip");
+        Files.write(file.toPath(), content);
+
+        FileChannelEntity entity = new FileChannelEntity(file, ContentType.DEFAULT_BINARY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        assertEquals(content.length, entity.getContentLength());
+        assertArrayEquals(content, out.toByteArray());
+        // repeatable, e.g. when the upload is retried
+        out.reset();
+        entity.writeTo(out);
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    void hashesContentWhileSendingIt() throws IOException {
+        File file = new File(directory, "test.txt");
+        Files.write(file.toPath(), "test".getBytes(StandardCharsets.UTF_8));
+        String sha256 = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+        FileChannelEntity entity = new FileChannelEntity(file, ContentType.DEFAULT_BINARY, true);
+        assertNull(entity.getSha256());
+        entity.writeTo(OutputStream.nullOutputStream());
+
+        assertEquals(sha256, entity.getSha256());
+        assertEquals(sha256, FileChannelEntity.sha256(file));
+    }
+
+    @Test
+    void sendsAnnouncedLengthWhenFileGrows() throws IOException {
+        File file = new File(directory, "build.log");
+        Files.write(file.toPath(), new byte[] {1, 2, 3});
+        FileChannelEntity entity = new FileChannelEntity(file, ContentType.DEFAULT_BINARY);
+
+        Files.write(file.toPath(), new byte[] {4, 5}, StandardOpenOption.APPEND);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, out.toByteArray());
+    }
+
+    @Test
+    void memoryUseDoesNotGrowWithFile() throws IOException {
+        File file = new File(directory, "archive.tar");
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            byte[] chunk = new byte[1024 * 1024];
+            for (int i = 0; i < 32; i++) {
+                out.write(chunk);
+            }
+        }
+        FileChannelEntity entity = new FileChannelEntity(file, ContentType.DEFAULT_BINARY);
+
+        long allocated = allocatedBytes(() -> entity.writeTo(OutputStream.nullOutputStream()));
+
+        assertTrue(allocated < 1024 * 1024, "allocated " + allocated + " bytes to send 32 MB");
+    }
+
+    static long allocatedBytes(IOAction action) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        action.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    interface IOAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,99 @@
+package jenkins.plugins.slack.pipeline;
+
+import hudson.util.FileVisitor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobWalkerTest {
+
+    private Path directory;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("slack-upload");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void findsFilesLikeAntPatterns() throws IOException {
+        create("report.txt", "build.log", "sub/notes.txt", "sub/deep/more.txt", ".git/config.txt", "target/app.jar");
+
+        assertEquals(Set.of("report.txt", "sub/notes.txt", "sub/deep/more.txt"), walk("**/*.txt"));
+        assertEquals(Set.of("report.txt", "sub/deep/more.txt"), walk("*.txt, sub/deep/"));
+        assertEquals(Set.of("target/app.jar"), walk("target/*.jar"));
+        assertEquals(Set.of("build.log"), walk("build.log"));
+        assertTrue(walk("**/*.zip").isEmpty());
+    }
+
+    @Test
+    void firstUploadStartsBeforeWalkEnds() throws Exception {
+        create("one/first.txt", "two/second.txt");
+        List<String> visited = new ArrayList<>();
+
+        new GlobWalker("**/*.txt").walk(directory.toFile(), new FileVisitor() {
+            @Override
+            public void visit(File file, String relativePath) throws IOException {
+                visited.add(relativePath.replace(File.separatorChar, '/'));
+                if (visited.size() > 1) {
+                    return;
+                }
+                // the upload of the first file adds a file to the directory the walk hasn't entered yet
+                Future<?> upload = executor.submit(() -> {
+                    String other = relativePath.startsWith("one") ? "two" : "one";
+                    Files.createFile(directory.resolve(other).resolve("late.txt"));
+                    return null;
+                });
+                try {
+                    upload.get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+
+        // a walk that finished before visiting, like DirScanner.Glob, would miss the late file
+        assertEquals(3, visited.size(), visited.toString());
+        assertTrue(visited.stream().anyMatch(path -> path.endsWith("late.txt")), visited.toString());
+    }
+
+    private Set<String> walk(String includes) throws IOException {
+        Set<String> found = new TreeSet<>();
+        new GlobWalker(includes).walk(directory.toFile(), new FileVisitor() {
+            @Override
+            public void visit(File file, String relativePath) {
+                assertEquals(directory.resolve(relativePath).toFile(), file);
+                found.add(relativePath.replace(File.separatorChar, '/'));
+            }
+        });
+        return found;
+    }
+
+    private void create(String... paths) throws IOException {
+        for (String path : paths) {
+            Path file = directory.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, path.getBytes());
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package jenkins.plugins.slack.pipeline;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.FilePath;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.plugins.slack.cache.UploadedFile;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackUploadFileRunnerTest {
+
+    private static final AtomicInteger TOKENS = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private final List<Long> pauses = new CopyOnWriteArrayList<>();
+    // each test uses its own token, so the shared rate limiter doesn't hold back calls of other tests
+    private final String token = "xoxb-test-" + TOKENS.incrementAndGet();
+    private Path workspace;
+    private SlackStub slack;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workspace = Files.createTempDirectory("slack-upload");
+        slack = new SlackStub();
+    }
+
+    @AfterEach
+    void tearDown() {
+        slack.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void backoffDoublesWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            long first = SlackUploadFileRunner.backoffMillis(1, 0);
+            long second = SlackUploadFileRunner.backoffMillis(2, 0);
+            long third = SlackUploadFileRunner.backoffMillis(3, 0);
+            assertTrue(first >= 500 && first <= 1000, "first backoff " + first);
+            assertTrue(second >= 1000 && second <= 2000, "second backoff " + second);
+            assertTrue(third >= 2000 && third <= 4000, "third backoff " + third);
+        }
+    }
+
+    @Test
+    void backoffIsCapped() {
+        for (int i = 0; i < 100; i++) {
+            long backoff = SlackUploadFileRunner.backoffMillis(40, 0);
+            assertTrue(backoff >= 15_000 && backoff <= 30_000, "backoff " + backoff);
+        }
+    }
+
+    @Test
+    void backoffHonoursRetryAfter() {
+        assertEquals(20_000, SlackUploadFileRunner.backoffMillis(1, 20));
+    }
+
+    @Test
+    void onlyRetriesErrorsThatMayGoAway() {
+        assertTrue(SlackUploadFileRunner.isRetryable(500));
+        assertTrue(SlackUploadFileRunner.isRetryable(503));
+        assertTrue(SlackUploadFileRunner.isRetryable(429));
+        assertTrue(SlackUploadFileRunner.isRetryable(404));
+        assertTrue(SlackUploadFileRunner.isRetryable(410));
+        assertFalse(SlackUploadFileRunner.isRetryable(400));
+        assertFalse(SlackUploadFileRunner.isRetryable(401));
+        assertFalse(SlackUploadFileRunner.isRetryable(413));
+    }
+
+    @Test
+    void uploadsFilesAndSharesThem() throws Throwable {
+        create("a.txt", "first");
+        create("b.txt", "second");
+
+        SlackUploadResult result = upload("*.txt", "C1");
+
+        assertTrue(result.isOk(), log());
+        Map<String, FileUploadResult> files = byName(result);
+        assertEquals(2, files.size());
+        for (FileUploadResult file : files.values()) {
+            assertTrue(file.isOk());
+            assertEquals(1, file.getAttempts());
+        }
+        assertEquals(5, files.get("a.txt").getLength());
+        assertEquals(1, slack.completed.size());
+        JSONObject complete = slack.completed.get(0);
+        assertEquals("C1", complete.getString("channel_id"));
+        assertEquals("initial comment", complete.getString("initial_comment"));
+        assertEquals(2, complete.getJSONArray("files").length());
+        assertTrue(pauses.isEmpty());
+    }
+
+    @Test
+    void retriesServerErrorsWithNewUploadUrl() throws Throwable {
+        create("a.txt", "first");
+        slack.uploadStatuses("a.txt", 500, 503);
+
+        SlackUploadResult result = upload("a.txt", "C1");
+
+        assertTrue(result.isOk(), log());
+        assertEquals(3, result.getFiles().get(0).getAttempts());
+        assertEquals(3, slack.uploadUrlCalls.get());
+        assertEquals(3, slack.uploads.size());
+        assertEquals(3L, slack.uploads.stream().distinct().count(), "each attempt uses a new upload URL");
+        assertEquals(2, pauses.size());
+        assertEquals(1, slack.completed.size());
+    }
+
+    @Test
+    void honoursRetryAfter() throws Throwable {
+        create("a.txt", "first");
+        slack.uploadStatuses("a.txt", 429);
+        slack.retryAfterSeconds = 7;
+
+        SlackUploadResult result = upload("a.txt", "C1");
+
+        assertTrue(result.isOk(), log());
+        assertEquals(2, result.getFiles().get(0).getAttempts());
+        assertEquals(1, pauses.size());
+        assertTrue(pauses.get(0) >= 7000, "pause " + pauses.get(0));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Throwable {
+        create("a.txt", "first");
+        slack.uploadStatuses("a.txt", 500, 500, 500, 500, 500);
+
+        SlackUploadResult result = upload("a.txt", "C1");
+
+        assertFalse(result.isOk());
+        FileUploadResult file = result.getFiles().get(0);
+        assertFalse(file.isOk());
+        assertEquals(SlackUploadFileRunner.MAX_FILE_ATTEMPTS, file.getAttempts());
+        assertEquals(SlackUploadFileRunner.MAX_FILE_ATTEMPTS, slack.uploads.size());
+        assertTrue(slack.completed.isEmpty());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Throwable {
+        create("a.txt", "first");
+        slack.uploadStatuses("a.txt", 413);
+
+        SlackUploadResult result = upload("a.txt", "C1");
+
+        assertFalse(result.isOk());
+        FileUploadResult file = result.getFiles().get(0);
+        assertEquals(1, file.getAttempts());
+        assertTrue(file.getError().contains("413"), file.getError());
+        assertEquals(1, slack.uploads.size());
+        assertTrue(pauses.isEmpty());
+        assertTrue(slack.completed.isEmpty());
+    }
+
+    @Test
+    void doesNotRetryApiErrors() throws Throwable {
+        create("a.txt", "first");
+        slack.uploadUrlError = "invalid_auth";
+
+        SlackUploadResult result = upload("a.txt", "C1");
+
+        assertFalse(result.isOk());
+        assertEquals(1, result.getFiles().get(0).getAttempts());
+        assertEquals(1, slack.uploadUrlCalls.get());
+        assertTrue(slack.uploads.isEmpty());
+        assertTrue(pauses.isEmpty());
+    }
+
+    @Test
+    void reportsEachFile() throws Throwable {
+        create("a.txt", "first");
+        create("b.txt", "second");
+        slack.uploadStatuses("b.txt", 400);
+
+        SlackUploadResult result = upload("*.txt", "C1");
+
+        // the file that was uploaded is still shared
+        assertFalse(result.isOk());
+        assertNull(result.getError());
+        assertEquals(1, result.getFailedCount());
+        Map<String, FileUploadResult> files = byName(result);
+        assertTrue(files.get("a.txt").isOk());
+        assertFalse(files.get("b.txt").isOk());
+        assertEquals(1, slack.completed.size());
+        assertEquals(1, slack.completed.get(0).getJSONArray("files").length());
+        assertEquals(files.get("a.txt").getFileId(), slack.completed.get(0).getJSONArray("files").getJSONObject(0).getString("id"));
+    }
+
+    @Test
+    void uploadsInParallel() throws Throwable {
+        for (int i = 0; i < 6; i++) {
+            create("file" + i + ".txt", "content " + i);
+        }
+        slack.uploadMillis = 200;
+
+        SlackUploadResult result = upload(new SlackFileRequest(new FilePath(workspace.toFile()), token, "C1", null, "*.txt", null, 3), null);
+
+        assertTrue(result.isOk(), log());
+        assertEquals(6, result.getFiles().size());
+        assertTrue(slack.maxConcurrentUploads.get() > 1, "max concurrent uploads " + slack.maxConcurrentUploads);
+        assertTrue(slack.maxConcurrentUploads.get() <= 3, "max concurrent uploads " + slack.maxConcurrentUploads);
+    }
+
+    @Test
+    void stopsAtFileLimit() throws Throwable {
+        create("a.txt", "first");
+        create("b.txt", "second");
+        create("c.txt", "third");
+
+        SlackUploadResult result = upload(new SlackFileRequest(new FilePath(workspace.toFile()), token, "C1", null, "*.txt", null, 1, 2, 1), null);
+
+        assertFalse(result.isOk());
+        assertTrue(result.getError().contains("more than 2 files"), result.getError());
+        assertTrue(slack.completed.isEmpty());
+    }
+
+    @Test
+    void stopsAtSizeLimit() throws Throwable {
+        create("a.txt", "first");
+        Files.write(workspace.resolve("large.bin"), new byte[(1 << 20) + 1]);
+
+        SlackUploadResult result = upload(new SlackFileRequest(new FilePath(workspace.toFile()), token, "C1", null, "*", null, 1, 10, 1), null);
+
+        assertFalse(result.isOk());
+        assertTrue(result.getError().contains("more than 1 MB"), result.getError());
+        assertTrue(slack.completed.isEmpty());
+    }
+
+    @Test
+    void sharesWithSeveralChannelsAtOnce() throws Throwable {
+        create("a.txt", "first");
+
+        SlackUploadResult result = upload("a.txt", "C1,C2");
+
+        assertTrue(result.isOk(), log());
+        assertEquals(1, slack.uploads.size());
+        assertEquals(1, slack.completed.size());
+        JSONObject complete = slack.completed.get(0);
+        assertEquals("C1,C2", complete.getString("channels"));
+        assertFalse(complete.has("channel_id"));
+    }
+
+    @Test
+    void linksFilesUploadedBefore() throws Throwable {
+        File before = create("a.txt", "first");
+        create("b.txt", "second");
+        String sha256 = FileChannelEntity.sha256(before);
+        Map<String, UploadedFile> uploaded = new HashMap<>();
+        uploaded.put(sha256, new UploadedFile("F-BEFORE", before.length(), null));
+        // shared in a public and a private channel
+        slack.files.put("F-BEFORE", new JSONObject().put("size", before.length()).put("permalink", "https://team.slack.com/files/U1/F-BEFORE/a.txt")
+                .put("channels", new JSONArray().put("C1")).put("groups", new JSONArray().put("C2")));
+
+        SlackUploadResult result = upload(request("*.txt", "C1,C2"), lookup(uploaded));
+
+        assertTrue(result.isOk(), log());
+        Map<String, FileUploadResult> files = byName(result);
+        assertTrue(files.get("a.txt").isReused());
+        assertEquals("F-BEFORE", files.get("a.txt").getFileId());
+        // only the new file is uploaded, and reported with its hash so the controller can remember it
+        assertEquals(1, slack.uploads.size());
+        assertEquals(1, result.getNewFiles().size());
+        FileUploadResult added = result.getNewFiles().get(0);
+        assertEquals("b.txt", added.getFileName());
+        assertEquals(FileChannelEntity.sha256(workspace.resolve("b.txt").toFile()), added.getSha256());
+        assertEquals(2, slack.messages.size());
+        for (JSONObject message : slack.messages) {
+            assertTrue(message.getString("text").contains("https://team.slack.com/files/U1/F-BEFORE/a.txt"), message.toString());
+        }
+    }
+
+    @Test
+    void uploadsAgainIfFileBeforeIsGone() throws Throwable {
+        File before = create("a.txt", "first");
+        Map<String, UploadedFile> uploaded = new HashMap<>();
+        uploaded.put(FileChannelEntity.sha256(before), new UploadedFile("F-DELETED", before.length(), null));
+
+        SlackUploadResult result = upload(request("a.txt", "C1"), lookup(uploaded));
+
+        assertTrue(result.isOk(), log());
+        assertFalse(result.getFiles().get(0).isReused());
+        assertEquals(1, slack.uploads.size());
+        assertTrue(slack.messages.isEmpty());
+    }
+
+    @Test
+    void uploadsAgainIfFileBeforeIsNotSharedInTheChannel() throws Throwable {
+        File before = create("a.txt", "first");
+        Map<String, UploadedFile> uploaded = new HashMap<>();
+        uploaded.put(FileChannelEntity.sha256(before), new UploadedFile("F-BEFORE", before.length(), null));
+        // members of C2 couldn't open a link to it
+        slack.files.put("F-BEFORE", new JSONObject().put("size", before.length()).put("permalink", "https://team.slack.com/files/U1/F-BEFORE/a.txt")
+                .put("channels", new JSONArray().put("C1")));
+
+        SlackUploadResult result = upload(request("a.txt", "C1,C2"), lookup(uploaded));
+
+        assertTrue(result.isOk(), log());
+        assertFalse(result.getFiles().get(0).isReused());
+        assertEquals(1, slack.uploads.size());
+        assertTrue(slack.messages.isEmpty());
+    }
+
+    private SlackUploadResult upload(String includes, String channelId) throws Throwable {
+        return upload(request(includes, channelId), null);
+    }
+
+    private SlackUploadResult upload(SlackFileRequest request, UploadedFileLookup uploadedFiles) throws Throwable {
+        StreamTaskListener listener = new StreamTaskListener(log, StandardCharsets.UTF_8);
+        return new SlackUploadFileRunner(listener, null, request, uploadedFiles, slack.getApiUrl()) {
+            @Override
+            void pause(long millis) {
+                pauses.add(millis);
+            }
+        }.call();
+    }
+
+    private SlackFileRequest request(String includes, String channelId) {
+        return new SlackFileRequest(new FilePath(workspace.toFile()), token, channelId, "initial comment", includes, null);
+    }
+
+    private static UploadedFileLookup lookup(Map<String, UploadedFile> files) {
+        return new UploadedFileLookup() {
+            @Override
+            public boolean containsLength(long length) {
+                return files.values().stream().anyMatch(file -> file.getLength() == length);
+            }
+
+            @Override
+            public UploadedFile get(String sha256) {
+                return files.get(sha256);
+            }
+        };
+    }
+
+    private File create(String name, String content) throws IOException {
+        Path file = workspace.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private static Map<String, FileUploadResult> byName(SlackUploadResult result) {
+        Map<String, FileUploadResult> files = new HashMap<>();
+        result.getFiles().forEach(file -> files.put(file.getFileName(), file));
+        return files;
+    }
+
+    private String log() {
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Answers the Slack API methods the runner calls and the upload URLs it hands out.
+     */
+    private final class SlackStub {
+        private final HttpServer server;
+        private final AtomicInteger uploadUrlCalls = new AtomicInteger();
+        private final AtomicInteger concurrentUploads = new AtomicInteger();
+        private final AtomicInteger maxConcurrentUploads = new AtomicInteger();
+        private final List<String> uploads = new CopyOnWriteArrayList<>();
+        private final List<JSONObject> completed = new CopyOnWriteArrayList<>();
+        private final List<JSONObject> messages = new CopyOnWriteArrayList<>();
+        private final Map<String, Deque<Integer>> uploadStatuses = new ConcurrentHashMap<>();
+        // file ID to the file files.info describes
+        private final Map<String, JSONObject> files = new ConcurrentHashMap<>();
+        private volatile String uploadUrlError;
+        private volatile long retryAfterSeconds = 1;
+        private volatile long uploadMillis;
+
+        SlackStub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/api/files.getUploadURLExternal", this::getUploadUrl);
+            server.createContext("/api/files.completeUploadExternal", exchange -> {
+                completed.add(new JSONObject(read(exchange)));
+                respond(exchange, 200, new JSONObject().put("ok", true));
+            });
+            server.createContext("/api/chat.postMessage", exchange -> {
+                messages.add(new JSONObject(read(exchange)));
+                respond(exchange, 200, new JSONObject().put("ok", true));
+            });
+            server.createContext("/api/files.info", exchange -> {
+                JSONObject file = files.get(query(exchange).get("file"));
+                respond(exchange, 200, file != null
+                        ? new JSONObject().put("ok", true).put("file", file)
+                        : new JSONObject().put("ok", false).put("error", "file_not_found"));
+            });
+            server.createContext("/upload/", this::upload);
+            server.start();
+        }
+
+        String getApiUrl() {
+            return "http://" + address() + "/api/";
+        }
+
+        void uploadStatuses(String fileName, Integer... statuses) {
+            Deque<Integer> queue = new ArrayDeque<>();
+            Collections.addAll(queue, statuses);
+            uploadStatuses.put(fileName, queue);
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void getUploadUrl(HttpExchange exchange) throws IOException {
+            int call = uploadUrlCalls.incrementAndGet();
+            if (uploadUrlError != null) {
+                respond(exchange, 200, new JSONObject().put("ok", false).put("error", uploadUrlError));
+                return;
+            }
+            String fileName = query(exchange).get("filename");
+            respond(exchange, 200, new JSONObject()
+                    .put("ok", true)
+                    .put("upload_url", "http://" + address() + "/upload/" + call + "/" + fileName)
+                    .put("file_id", "F" + call));
+        }
+
+        private void upload(HttpExchange exchange) throws IOException {
+            int concurrent = concurrentUploads.incrementAndGet();
+            maxConcurrentUploads.accumulateAndGet(concurrent, Math::max);
+            try {
+                String path = exchange.getRequestURI().getPath();
+                uploads.add(path);
+                read(exchange);
+                if (uploadMillis > 0) {
+                    Thread.sleep(uploadMillis);
+                }
+                Deque<Integer> statuses = uploadStatuses.get(path.substring(path.lastIndexOf('/') + 1));
+                Integer status = statuses != null ? statuses.poll() : null;
+                if (status != null && status == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                }
+                byte[] body = (status != null ? "error" : "OK").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status != null ? status : 200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                concurrentUploads.decrementAndGet();
+            }
+        }
+
+        private String address() {
+            InetSocketAddress address = server.getAddress();
+            return address.getHostString() + ":" + address.getPort();
+        }
+
+        private String read(HttpExchange exchange) throws IOException {
+            return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        private Map<String, String> query(HttpExchange exchange) {
+            Map<String, String> parameters = new HashMap<>();
+            URI uri = exchange.getRequestURI();
+            if (uri.getQuery() != null) {
+                for (String parameter : uri.getQuery().split("&")) {
+                    int separator = parameter.indexOf('=');
+                    parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+            return parameters;
+        }
+
+        private void respond(HttpExchange exchange, int status, JSONObject response) throws IOException {
+            byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
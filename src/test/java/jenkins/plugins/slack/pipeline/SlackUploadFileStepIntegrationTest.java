@@ -27,6 +27,15 @@ class SlackUploadFileStepIntegrationTest {
         st.assertRoundTrip(step, "slackUploadFile channel: 'channel', filePath: 'file.txt', initialComment: 'hi'");
         step.setCredentialId("cred");
         st.assertRoundTrip(step, "slackUploadFile channel: 'channel', credentialId: 'cred', filePath: 'file.txt', initialComment: 'hi'");
+        step.setMaxConcurrentUploads(8);
+        st.assertRoundTrip(step, "slackUploadFile channel: 'channel', credentialId: 'cred', filePath: 'file.txt', initialComment: 'hi', maxConcurrentUploads: 8");
+        step.setMaxFiles(10);
+        step.setMaxTotalSizeMb(50);
+        st.assertRoundTrip(step, "slackUploadFile channel: 'channel', credentialId: 'cred', filePath: 'file.txt', initialComment: 'hi', "
+                + "maxConcurrentUploads: 8, maxFiles: 10, maxTotalSizeMb: 50");
+        step.setReuseUploadedFiles(true);
+        st.assertRoundTrip(step, "slackUploadFile channel: 'channel', credentialId: 'cred', filePath: 'file.txt', initialComment: 'hi', "
+                + "maxConcurrentUploads: 8, maxFiles: 10, maxTotalSizeMb: 50, reuseUploadedFiles: true");
     }
 
     @Test
@@ -0,0 +1,80 @@
+package jenkins.plugins.slack.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares sending a file as a raw streamed body with sending it as a multipart form, over a loopback socket like
+ * the HTTP client does. Only runs when asked for, e.g. {@code mvn test -Dtest=UploadBodyBenchmark -Dbenchmark=true
+ * -Dbenchmark.sizeMb=500}.
+ */
+class UploadBodyBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void rawBodyAgainstMultipart() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmark"), "benchmarks are only run with -Dbenchmark=true");
+        long size = Long.getLong("benchmark.sizeMb", 256) * 1024 * 1024;
+        File file = new File(directory, "archive.zip");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // first rounds warm up the JIT and the page cache
+            run("multipart", MultipartEntityBuilder.create()
+                    .setMode(HttpMultipartMode.LEGACY)
+                    .addBinaryBody("file", file, ContentType.DEFAULT_BINARY, file.getName())
+                    .build(), size);
+            run("raw", new FileChannelEntity(file, ContentType.DEFAULT_BINARY), size);
+        }
+    }
+
+    private static void run(String name, HttpEntity body, long size) throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            Thread drain = new Thread(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                try (InputStream in = accepted.getInputStream()) {
+                    while (in.read(buffer) >= 0) {
+                        // discard
+                    }
+                } catch (IOException ignored) {
+                    // the benchmark fails on the writing side
+                }
+            });
+            drain.start();
+
+            long start = System.nanoTime();
+            long allocated;
+            try (OutputStream out = client.getOutputStream()) {
+                allocated = FileChannelEntityTest.allocatedBytes(() -> body.writeTo(out));
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            drain.join();
+
+            System.out.printf("%-9s %d MB in %5dms, %6.1f MB/s, %8d bytes allocated%n", name, size >> 20, millis,
+                    (size >> 20) * 1000.0 / Math.max(millis, 1), allocated);
+        }
+    }
+}
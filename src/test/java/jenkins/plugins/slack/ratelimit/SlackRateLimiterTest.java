@@ -0,0 +1,113 @@
+package jenkins.plugins.slack.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SlackRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new SlackRateLimiter(now::get, () -> {
+            throw new AssertionError("not used");
+        });
+    }
+
+    @Test
+    void burstIsAllowedThenCallsAreSpacedOut() {
+        for (int i = 0; i < RateTier.POST_MESSAGE.getBurst(); i++) {
+            assertEquals(0, rateLimiter.reserve("token", "chat.postMessage"));
+        }
+
+        assertEquals(TimeUnit.SECONDS.toNanos(1), rateLimiter.reserve("token", "chat.postMessage"), TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), rateLimiter.reserve("token", "chat.postMessage"), TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(2, rateLimiter.getQueueDepth());
+    }
+
+    @Test
+    void bucketsAreSeparatePerTokenAndMethod() {
+        assertEquals(0, rateLimiter.reserve("token", "conversations.list"));
+        for (int i = 1; i < RateTier.TIER_2.getBurst(); i++) {
+            rateLimiter.reserve("token", "conversations.list");
+        }
+        assertTrue(rateLimiter.reserve("token", "conversations.list") > 0);
+
+        assertEquals(0, rateLimiter.reserve("other-token", "conversations.list"));
+        assertEquals(0, rateLimiter.reserve("token", "chat.postMessage"));
+    }
+
+    @Test
+    void bucketRefillsOverTime() {
+        for (int i = 0; i < RateTier.TIER_2.getBurst(); i++) {
+            rateLimiter.reserve("token", "conversations.list");
+        }
+        // tier 2 allows 20 calls per minute
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+
+        assertEquals(0, rateLimiter.reserve("token", "conversations.list"));
+    }
+
+    @Test
+    void retryAfterHoldsBackAllMethodsOfTheToken() {
+        rateLimiter.throttled("token", "chat.postMessage", 30);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(30), rateLimiter.reserve("token", "reactions.add"));
+        assertEquals(0, rateLimiter.reserve("other-token", "reactions.add"));
+        assertEquals(1, rateLimiter.getThrottledCount());
+        assertEquals(1, rateLimiter.getStats().get("chat.postMessage").getThrottled());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertEquals(0, rateLimiter.reserve("token", "chat.update"));
+    }
+
+    @Test
+    void messagesAreLimitedPerChannel() {
+        for (int i = 0; i < RateTier.POST_MESSAGE.getBurst(); i++) {
+            rateLimiter.reserve("token", "chat.postMessage", "C1");
+        }
+        assertTrue(rateLimiter.reserve("token", "chat.postMessage", "C1") > 0);
+
+        assertEquals(0, rateLimiter.reserve("token", "chat.postMessage", "C2"));
+        assertEquals(0, rateLimiter.reserve("token", SlackRateLimiter.INCOMING_WEBHOOK, "C1"));
+    }
+
+    @Test
+    void otherMethodsAreLimitedPerWorkspace() {
+        for (int i = 0; i < RateTier.TIER_2.getBurst(); i++) {
+            rateLimiter.reserve("token", "conversations.list", "C" + i);
+        }
+
+        assertTrue(rateLimiter.reserve("token", "conversations.list", "C-other") > 0);
+    }
+
+    @Test
+    void idleBucketsAreDropped() {
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.reserve("token", "chat.postMessage", "C" + i);
+        }
+        rateLimiter.throttled("token", "chat.postMessage", 1);
+        assertEquals(100, rateLimiter.getBucketCount());
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertEquals(0, rateLimiter.reserve("token", "chat.postMessage", "C0"));
+
+        assertEquals(1, rateLimiter.getBucketCount());
+    }
+
+    @Test
+    void statsAreBounded() {
+        for (int i = 0; i < SlackRateLimiter.MAX_STATS * 2; i++) {
+            rateLimiter.reserve("token", "method" + i);
+        }
+
+        assertEquals(SlackRateLimiter.MAX_STATS + 1, rateLimiter.getStats().size());
+        assertEquals(SlackRateLimiter.MAX_STATS, rateLimiter.getStats().get(SlackRateLimiter.OTHER_METHODS).getCalls());
+    }
+}
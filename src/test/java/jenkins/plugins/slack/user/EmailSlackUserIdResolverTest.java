@@ -74,6 +74,7 @@ public class EmailSlackUserIdResolverTest {
 
     @BeforeEach
     void setUp() {
+        SlackUserIdCache.get().clear();
         httpClient = new CloseableHttpClientStub();
         mailAddressResolver = getMailAddressResolver();
         resolver = getResolver(mailAddressResolver);
@@ -89,11 +90,31 @@ public class EmailSlackUserIdResolverTest {
         assertEquals(EXPECTED_USER_ID, userId);
 
         // Test handling of an error response from Slack
+        SlackUserIdCache.get().clear();
         httpClient.setHttpResponse(getResponseError());
         userId = resolver.resolveUserIdForEmailAddress(EMAIL_ADDRESS);
         assertNull(userId);
     }
 
+    @Test
+    void testResolvedUserIdIsCached() throws IOException {
+        httpClient.setHttpResponse(getResponseOK());
+        assertEquals(EXPECTED_USER_ID, resolver.resolveUserIdForEmailAddress(EMAIL_ADDRESS));
+
+        httpClient.setHttpResponse(getResponseError());
+        assertEquals(EXPECTED_USER_ID, resolver.resolveUserIdForEmailAddress(EMAIL_ADDRESS.toUpperCase()));
+    }
+
+    @Test
+    void testUnknownEmailAddressIsCached() throws IOException {
+        httpClient.setHttpResponse(getResponseError());
+        assertNull(resolver.resolveUserIdForEmailAddress(EMAIL_ADDRESS));
+
+        httpClient.setHttpResponse(getResponseOK());
+        assertNull(resolver.resolveUserIdForEmailAddress(EMAIL_ADDRESS));
+        assertEquals(1, SlackUserIdCache.get().getNotFoundCount());
+    }
+
     @Test
     void testResolveUserIdForUser() throws Exception {
         // MailAddressResolver is mocked to return EMAIL_ADDRESS associated with
@@ -0,0 +1,125 @@
+package jenkins.plugins.slack.user;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlackUserIdCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final SlackUserIdCache cache = new SlackUserIdCache(now::get,
+            () -> Duration.ofHours(24), () -> Duration.ofHours(1));
+
+    @Test
+    void foundUserIdIsRememberedUntilItExpires() {
+        assertEquals("U123", cache.getUserId("token", "a@example.com", this::found));
+        advance(23);
+        assertEquals("U123", cache.getUserId("token", "A@Example.com", this::found));
+        assertEquals(1, lookups.get());
+
+        advance(1);
+        assertEquals("U123", cache.getUserId("token", "a@example.com", this::found));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void unknownEmailAddressIsRememberedForShorterTime() {
+        assertNull(cache.getUserId("token", "bot@example.com", this::notFound));
+        assertNull(cache.getUserId("token", "bot@example.com", this::notFound));
+        assertEquals(1, lookups.get());
+        assertEquals(1, cache.getNotFoundCount());
+        assertEquals(0, cache.getFoundCount());
+
+        advance(1);
+        assertEquals("U123", cache.getUserId("token", "bot@example.com", this::found));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void failedLookupIsNotRemembered() {
+        assertNull(cache.getUserId("token", "a@example.com", email -> {
+            lookups.incrementAndGet();
+            return null;
+        }));
+        assertEquals("U123", cache.getUserId("token", "a@example.com", this::found));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void workspacesAreSeparate() {
+        cache.getUserId("token", "a@example.com", this::found);
+        cache.getUserId("other", "a@example.com", this::notFound);
+
+        assertEquals("U123", cache.getUserId("token", "a@example.com", this::notFound));
+        assertEquals(2, lookups.get());
+        assertEquals(33, cache.getHitRatePercent());
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        cache.getUserId("token", "a@example.com", this::found);
+        cache.clear();
+
+        cache.getUserId("token", "a@example.com", this::found);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void lookupDoesNotBlockOtherAddresses() throws Exception {
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> slow = executor.submit(() -> cache.getUserId("token", "slow@example.com", email -> {
+                lookingUp.countDown();
+                try {
+                    answer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "U456";
+            }));
+            assertTrue(lookingUp.await(10, TimeUnit.SECONDS));
+
+            // some of these share a hash bin with the slow lookup
+            Future<?> others = executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    assertEquals("U123", cache.getUserId("token", i + "@example.com", this::found));
+                }
+            });
+            others.get(10, TimeUnit.SECONDS);
+
+            answer.countDown();
+            assertEquals("U456", slow.get(10, TimeUnit.SECONDS));
+            assertEquals("U456", cache.getUserId("token", "slow@example.com", this::found));
+            assertEquals(100, lookups.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String found(String email) {
+        lookups.incrementAndGet();
+        return "U123";
+    }
+
+    private String notFound(String email) {
+        lookups.incrementAndGet();
+        return SlackUserIdCache.NOT_FOUND;
+    }
+
+    private void advance(int hours) {
+        now.addAndGet(TimeUnit.HOURS.toNanos(hours));
+    }
+}
@@ -0,0 +1,201 @@
+package jenkins.plugins.slack.user;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Run;
+import hudson.model.User;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FakeChangeLogSCM.EntryImpl;
+import org.jvnet.hudson.test.FakeChangeLogSCM.FakeChangeLogSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlackUserIdResolverTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resolvesEachUserOnce() {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN"));
+
+        Map<User, String> userIds = resolver.resolveUserIds(List.of(spengler, venkman), null, deadline());
+
+        assertEquals(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN"), userIds);
+        assertEquals(1, resolver.calls.get(spengler).get());
+        assertEquals(1, resolver.calls.get(venkman).get());
+    }
+
+    @Test
+    void resolvesAuthorOfManyEntriesOnce() {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN"));
+        FakeChangeLogSet changeLogSet = new FakeChangeLogSet(mock(Run.class),
+                List.of(entry(spengler), entry(venkman), entry(spengler), entry(spengler)));
+
+        List<String> userIds = resolver.resolveUserIdsForChangeLogSet(changeLogSet);
+
+        assertEquals(List.of("W012A3CDE", "W0VENKMAN", "W012A3CDE", "W012A3CDE"), userIds);
+        assertEquals(1, resolver.calls.get(spengler).get());
+        assertEquals(1, resolver.calls.get(venkman).get());
+    }
+
+    @Test
+    void usesCommittersResolvedInAdvance() {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN"));
+        AbstractBuild<?, ?> run = runWithChanges(resolver, "token", spengler, venkman);
+
+        assertEquals(List.of("W012A3CDE", "W0VENKMAN"), resolver.resolveUserIdsForRun(run, "token"));
+        assertEquals(1, resolver.calls.get(spengler).get());
+        assertEquals(1, resolver.calls.get(venkman).get());
+    }
+
+    @Test
+    void ignoresCommittersResolvedInAdvanceWithAnotherToken() {
+        User spengler = mock(User.class);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE"));
+        AbstractBuild<?, ?> run = runWithChanges(resolver, "token", spengler);
+        resolver.resolveUserIdsForRun(run, "token");
+
+        resolver.resolveUserIdsForRun(run, "other-token");
+
+        assertEquals(2, resolver.calls.get(spengler).get());
+    }
+
+    @Test
+    void ignoresCommittersResolvedInAdvanceByAnotherResolver() {
+        User spengler = mock(User.class);
+        CountingResolver prefetching = new CountingResolver(Map.of(spengler, "W0PREFETCH"));
+        AbstractBuild<?, ?> run = runWithChanges(prefetching, "token", spengler);
+        prefetching.resolveUserIdsForRun(run, "token");
+        CountingResolver other = new CountingResolver(Map.of(spengler, "W012A3CDE")) {
+        };
+
+        assertEquals(List.of("W012A3CDE"), other.resolveUserIdsForRun(run, "token"));
+    }
+
+    @Test
+    void resolvesWithTheGivenToken() {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+        Map<User, String> tokens = new ConcurrentHashMap<>();
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN")) {
+            @Override
+            protected String resolveUserId(User user, String token) {
+                tokens.put(user, token);
+                return super.resolveUserId(user, token);
+            }
+        };
+        // another build using the same resolver
+        resolver.setAuthToken("other-token");
+
+        AbstractBuild<?, ?> run = runWithChanges(resolver, "token", spengler);
+        resolver.resolveUserIdsForRun(run, "token");
+        resolver.resolveUserIds(List.of(venkman), "token", deadline());
+
+        assertEquals(Map.of(spengler, "token", venkman, "token"), tokens);
+    }
+
+    @Test
+    void resolvesUsersConcurrently() {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE", venkman, "W0VENKMAN")) {
+            @Override
+            protected String resolveUserId(User user) {
+                bothStarted.countDown();
+                try {
+                    // only returns in time if the other user is resolved at the same time
+                    assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.resolveUserId(user);
+            }
+        };
+
+        assertEquals(2, resolver.resolveUserIds(List.of(spengler, venkman), null, deadline()).size());
+    }
+
+    @Test
+    void usersWithoutIdAreLeftOut() {
+        User spengler = mock(User.class);
+        User bot = mock(User.class);
+        CountingResolver resolver = new CountingResolver(Map.of(spengler, "W012A3CDE"));
+
+        assertEquals(Map.of(spengler, "W012A3CDE"), resolver.resolveUserIds(List.of(spengler, bot), null, deadline()));
+    }
+
+    private static AbstractBuild<?, ?> runWithChanges(SlackUserIdResolver resolver, String token, User... authors) {
+        AbstractBuild<?, ?> run = mock(AbstractBuild.class);
+        FakeChangeLogSet changeLogSet = new FakeChangeLogSet(run,
+                List.of(authors).stream().map(SlackUserIdResolverTest::entry).collect(Collectors.toList()));
+        doReturn(List.of(changeLogSet)).when(run).getChangeSets();
+
+        resolver.prefetchUserIds(run, changeLogSet, token);
+
+        // kept out of the run's actions, which are saved with the build
+        verify(run, never()).addOrReplaceAction(any());
+        verify(run, never()).addAction(any());
+        return run;
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + SlackUserIdResolver.RESOLUTION_DEADLINE.toNanos();
+    }
+
+    private static EntryImpl entry(User author) {
+        EntryImpl entry = mock(EntryImpl.class);
+        when(entry.getAuthor()).thenReturn(author);
+        return entry;
+    }
+
+    private class CountingResolver extends SlackUserIdResolver {
+
+        private final Map<User, String> userIds;
+        private final Map<User, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        CountingResolver(Map<User, String> userIds) {
+            super(null, null);
+            this.userIds = userIds;
+        }
+
+        @Override
+        protected String resolveUserId(User user) {
+            calls.computeIfAbsent(user, u -> new AtomicInteger()).incrementAndGet();
+            return userIds.get(user);
+        }
+
+        @Override
+        Executor getExecutor() {
+            return executor;
+        }
+    }
+}
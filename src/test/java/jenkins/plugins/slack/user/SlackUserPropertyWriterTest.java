@@ -0,0 +1,64 @@
+package jenkins.plugins.slack.user;
+
+import hudson.model.User;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SlackUserPropertyWriterTest {
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final SlackUserPropertyWriter writer = new SlackUserPropertyWriter(() -> scheduler);
+
+    @Test
+    void updatesAreWrittenTogetherLater() throws Exception {
+        User spengler = mock(User.class);
+        User venkman = mock(User.class);
+
+        writer.save(spengler, "W012A3CDE");
+        writer.save(venkman, "W0VENKMAN");
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(SlackUserPropertyWriter.FLUSH_DELAY_SECONDS), eq(TimeUnit.SECONDS));
+        verify(spengler, times(0)).addProperty(any());
+        assertEquals("W012A3CDE", writer.getPending(spengler));
+
+        writer.flush();
+
+        verify(spengler).addProperty(any(SlackUserProperty.class));
+        verify(venkman).addProperty(any(SlackUserProperty.class));
+        assertNull(writer.getPending(spengler));
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    void repeatedUpdatesOfUserAreWrittenOnce() throws Exception {
+        User spengler = mock(User.class);
+
+        writer.save(spengler, "W012A3CDE");
+        writer.save(spengler, "W0NEWID00");
+        writer.flush();
+
+        ArgumentCaptor<SlackUserProperty> property = ArgumentCaptor.forClass(SlackUserProperty.class);
+        verify(spengler, times(1)).addProperty(property.capture());
+        assertEquals("W0NEWID00", property.getValue().getUserId());
+    }
+
+    @Test
+    void updateAfterFlushSchedulesNextFlush() {
+        writer.save(mock(User.class), "W012A3CDE");
+        writer.flush();
+        writer.save(mock(User.class), "W0VENKMAN");
+
+        verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}